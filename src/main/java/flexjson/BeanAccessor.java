@@ -0,0 +1,195 @@
+package flexjson;
+
+import java.lang.reflect.Type;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Reads and writes the properties of a single bean class with plain method calls instead of
+ * reflection, and describes those properties so {@link BeanAnalyzer} doesn't have to introspect the
+ * class.  Subclasses are generated at compile time by {@link flexjson.processor.BeanAccessorProcessor}
+ * for classes annotated with {@link JSON}, and are named after the bean with {@link #SUFFIX} appended,
+ * Person_JSONAccessor for Person.  {@link JSONSerializer} and {@link JSONDeserializer} pick them up
+ * automatically through {@link #forClass(Class)}.
+ * </p>
+ *
+ * <p>
+ * Properties are numbered in the order BeanAnalyzer lists them, by name, and include the inherited
+ * ones.  An accessor can also be registered by hand with {@link #register(BeanAccessor)}, which saves
+ * looking it up by name and is handy where class loading by name needs extra configuration, like
+ * native images.
+ * </p>
+ */
+public abstract class BeanAccessor {
+
+    public static final String SUFFIX = "_JSONAccessor";
+
+    public static final int READABLE = 1;
+    public static final int WRITABLE = 2;
+    public static final int TRANSIENT = 4;
+    public static final int INCLUDE = 8;
+    public static final int EXCLUDE = 16;
+    /**
+     * Bits from here up hold the property's {@link JSON#omit()} values, one bit per {@link Omit} ordinal.
+     */
+    public static final int OMIT_SHIFT = 5;
+
+    private static final Object NONE = new Object();
+    private static final ConcurrentMap<Class,Object> accessors = new ConcurrentHashMap<Class,Object>();
+
+    private final Class beanClass;
+    private final boolean instantiable;
+    private final String[] names;
+    private final String[] jsonNames;
+    private final String[] encodedNames;
+    private final Class[] types;
+    private final Type[] writeTypes;
+    private final int[] flags;
+    private final Class[] transformers;
+    private final Class[] objectFactories;
+
+    /**
+     * Every array has one entry per property.
+     *
+     * @param beanClass the class this accessor handles.
+     * @param instantiable true if {@link #newInstance()} can create instances.
+     * @param names the property names.
+     * @param jsonNames the names written to and read from json.
+     * @param encodedNames the json names quoted and escaped the way {@link JSONContext#writeQuoted(String)} writes them.
+     * @param types the property types.
+     * @param writeTypes the generic types values are bound to before they're written.
+     * @param flags {@link #READABLE}, {@link #WRITABLE}, {@link #TRANSIENT}, {@link #INCLUDE} and {@link #EXCLUDE} bits,
+     * and the omitted values shifted by {@link #OMIT_SHIFT}.
+     * @param transformers the Transformer given to the property's {@link JSON} annotation, or null.
+     * @param objectFactories the ObjectFactory given to the property's {@link JSON} annotation, or null.
+     */
+    protected BeanAccessor(Class beanClass, boolean instantiable, String[] names, String[] jsonNames, String[] encodedNames,
+                           Class[] types, Type[] writeTypes, int[] flags, Class[] transformers, Class[] objectFactories) {
+        this.beanClass = beanClass;
+        this.instantiable = instantiable;
+        this.names = names;
+        this.jsonNames = jsonNames;
+        this.encodedNames = encodedNames;
+        this.types = types;
+        this.writeTypes = writeTypes;
+        this.flags = flags;
+        this.transformers = transformers;
+        this.objectFactories = objectFactories;
+    }
+
+    /**
+     * @param clazz a bean class.
+     * @return the accessor generated or registered for the class, or null if there isn't one.
+     */
+    public static BeanAccessor forClass( Class clazz ) {
+        Object accessor = accessors.get( clazz );
+        if( accessor == null ) {
+            accessor = load( clazz );
+            Object existing = accessors.putIfAbsent( clazz, accessor );
+            if( existing != null ) accessor = existing;
+        }
+        return accessor != NONE ? (BeanAccessor)accessor : null;
+    }
+
+    /**
+     * Use the given accessor for its bean class instead of looking one up.  Register it before the
+     * class is first serialized or deserialized.  The properties every thread analyzed and the
+     * constructor used to create the class are thrown away, but serializers that already wrote the
+     * class keep what they worked out from the old properties until their configuration changes.
+     *
+     * @param accessor the accessor to use.
+     */
+    public static void register( BeanAccessor accessor ) {
+        accessors.put( accessor.getBeanClass(), accessor );
+        BeanAnalyzer.clearAllCaches();
+        Instantiator.clearCache( accessor.getBeanClass() );
+    }
+
+    public static void clearCache() {
+        accessors.clear();
+    }
+
+    private static Object load( Class clazz ) {
+        if( clazz.isPrimitive() || clazz.isArray() || clazz.getName().startsWith( "java." ) ) return NONE;
+        try {
+            Class generated = Class.forName( clazz.getName() + SUFFIX, true, clazz.getClassLoader() );
+            BeanAccessor accessor = (BeanAccessor)generated.newInstance();
+            return accessor.getBeanClass() == clazz ? accessor : NONE;
+        } catch( ClassNotFoundException e ) {
+            return NONE;
+        } catch( InstantiationException e ) {
+            throw new JSONException( "Could not create the generated accessor for " + clazz.getName(), e );
+        } catch( IllegalAccessException e ) {
+            throw new JSONException( "Could not create the generated accessor for " + clazz.getName(), e );
+        }
+    }
+
+    public Class getBeanClass() {
+        return beanClass;
+    }
+
+    public int getPropertyCount() {
+        return names.length;
+    }
+
+    public String getName( int property ) {
+        return names[property];
+    }
+
+    public String getJsonName( int property ) {
+        return jsonNames[property];
+    }
+
+    public String getEncodedName( int property ) {
+        return encodedNames[property];
+    }
+
+    public Class getType( int property ) {
+        return types[property];
+    }
+
+    public Type getWriteType( int property ) {
+        return writeTypes[property];
+    }
+
+    public int getFlags( int property ) {
+        return flags[property];
+    }
+
+    public Class getTransformer( int property ) {
+        return transformers[property];
+    }
+
+    public Class getObjectFactory( int property ) {
+        return objectFactories[property];
+    }
+
+    /**
+     * @return true if {@link #newInstance()} can create instances of the bean.
+     */
+    public boolean isInstantiable() {
+        return instantiable;
+    }
+
+    /**
+     * @return a new instance of the bean created through its no-arg constructor.
+     */
+    public Object newInstance() {
+        throw new UnsupportedOperationException( beanClass.getName() + " can't be instantiated by its accessor" );
+    }
+
+    /**
+     * @param bean an instance of the bean class.
+     * @param property the number of a readable property.
+     * @return the property's value.
+     */
+    public abstract Object get( Object bean, int property );
+
+    /**
+     * @param bean an instance of the bean class.
+     * @param property the number of a writable property.
+     * @param value the value to write.
+     */
+    public abstract void set( Object bean, int property, Object value );
+}
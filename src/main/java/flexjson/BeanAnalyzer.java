@@ -4,32 +4,67 @@ import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class BeanAnalyzer {
 
-    private static ThreadLocal<Map<Class,BeanAnalyzer>> cache = new ThreadLocal<Map<Class,BeanAnalyzer>>();
+    private static ThreadLocal<Analyzers> cache = new ThreadLocal<Analyzers>();
+    // bumped to throw away the analyzers of every thread
+    private static final AtomicInteger generation = new AtomicInteger();
 
     private Class clazz;
     private BeanAnalyzer superBean;
     private Map<String,BeanProperty> properties;
+    private Collection<BeanProperty> mergedProperties;
+    private Map<String,BeanProperty> jsonProperties;
 
     public static BeanAnalyzer analyze( Class clazz ) {
-        if( cache.get() == null ) cache.set( new HashMap<Class,BeanAnalyzer>() );
+        Analyzers analyzers = cache.get();
+        int current = generation.get();
+        if( analyzers == null || analyzers.generation != current ) {
+            analyzers = new Analyzers( current );
+            cache.set( analyzers );
+        }
         if( clazz == null ) return null;
-        if( !cache.get().containsKey(clazz) ) {
-            cache.get().put( clazz, new BeanAnalyzer(clazz) );
+        if( !analyzers.containsKey(clazz) ) {
+            analyzers.put( clazz, new BeanAnalyzer(clazz) );
         }
-        return cache.get().get( clazz );
+        return analyzers.get( clazz );
     }
 
     public static void clearCache() {
         cache.remove();
     }
 
+    /**
+     * Throws away the analyzers of every thread, not just the calling one.  Each thread analyzes
+     * classes again the next time it uses them.
+     */
+    static void clearAllCaches() {
+        generation.incrementAndGet();
+    }
+
+    private static final class Analyzers extends HashMap<Class,BeanAnalyzer> {
+        private final int generation;
+
+        Analyzers( int generation ) {
+            this.generation = generation;
+        }
+    }
+
     protected BeanAnalyzer(Class clazz) {
         this.clazz = clazz;
-        superBean = analyze( clazz.getSuperclass() );
-        populateProperties();
+        BeanAccessor accessor = BeanAccessor.forClass( clazz );
+        if( accessor != null ) {
+            // a generated accessor already includes the inherited properties
+            properties = new TreeMap<String,BeanProperty>();
+            for( int i = 0; i < accessor.getPropertyCount(); i++ ) {
+                properties.put( accessor.getName( i ), new BeanProperty( accessor, i, this ) );
+            }
+        } else {
+            superBean = analyze( clazz.getSuperclass() );
+            populateProperties();
+        }
     }
 
     private void populateProperties() {
@@ -109,13 +144,46 @@ public class BeanAnalyzer {
     }
 
     public Collection<BeanProperty> getProperties() {
-        Map<String,BeanProperty> properties = new TreeMap<String,BeanProperty>(this.properties);
-        BeanAnalyzer current = this.superBean;
-        while( current != null ) {
-            merge( properties, current.properties );
-            current = current.superBean;
+        if( mergedProperties == null ) {
+            Map<String,BeanProperty> properties = new TreeMap<String,BeanProperty>(this.properties);
+            BeanAnalyzer current = this.superBean;
+            while( current != null ) {
+                merge( properties, current.properties );
+                current = current.superBean;
+            }
+            mergedProperties = Collections.unmodifiableCollection( properties.values() );
+        }
+        return mergedProperties;
+    }
+
+    /**
+     * Finds the property a key in a json object binds to.  Keys are matched against each property's
+     * json name, and also against the json name with its first letter capitalized.  When both forms
+     * could match different properties the exact json name wins.
+     *
+     * @param key a key from a json object.
+     * @return the property bound from that key, or null if none is.
+     */
+    public BeanProperty getJsonProperty(String key) {
+        if( jsonProperties == null ) {
+            Map<String,BeanProperty> byName = new HashMap<String,BeanProperty>();
+            for( BeanProperty property : getProperties() ) {
+                byName.put( property.getJsonName(), property );
+            }
+            for( BeanProperty property : getProperties() ) {
+                String alternate = capitalize( property.getJsonName() );
+                if( !byName.containsKey( alternate ) ) {
+                    byName.put( alternate, property );
+                }
+            }
+            jsonProperties = byName;
         }
-        return properties.values();
+        return jsonProperties.get( key );
+    }
+
+    static String capitalize( String value ) {
+        if( value.length() == 0 || Character.isUpperCase( value.charAt(0) ) ) return value;
+        return Character.toUpperCase( value.charAt(0) ) + value.substring(1);
     }
 
     private void merge(Map<String, BeanProperty> destination, Map<String, BeanProperty> source) {
@@ -1,11 +1,13 @@
 package flexjson;
 
 import flexjson.transformer.Transformer;
+import flexjson.transformer.TransformerWrapper;
 
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
 import java.util.*;
 
 public class BeanProperty {
@@ -20,11 +22,18 @@ public class BeanProperty {
     protected DeferredInstantiation<?  extends Transformer> transformer = null;
     protected DeferredInstantiation<? extends ObjectFactory> objectFactory = null;
     protected Boolean included = null;
+    private volatile TransformerWrapper wrappedTransformer;
+    private int omissions = -1;
+    private Type writeType;
+    private final BeanAccessor accessor;
+    private final int index;
 
     public BeanProperty(String name, BeanAnalyzer bean) {
         this.name = jsonName = name;
         this.bean = bean;
         this.property = bean.getDeclaredField(name);
+        this.accessor = null;
+        this.index = -1;
 
         if (property != null && property.isAnnotationPresent(JSON.class)) {
             processAnnotation(property.getAnnotation(JSON.class));
@@ -36,17 +45,49 @@ public class BeanProperty {
         this.bean = bean;
         this.property = property;
         this.propertyType = property.getType();
+        this.accessor = null;
+        this.index = -1;
 
         if (property.isAnnotationPresent(JSON.class)) {
             processAnnotation(property.getAnnotation(JSON.class));
         }
     }
 
+    /**
+     * Creates a property described by a generated {@link BeanAccessor} instead of reflection.
+     */
+    BeanProperty(BeanAccessor accessor, int index, BeanAnalyzer bean) {
+        this.name = accessor.getName(index);
+        this.jsonName = accessor.getJsonName(index);
+        this.bean = bean;
+        this.property = null;
+        this.propertyType = accessor.getType(index);
+        this.writeType = accessor.getWriteType(index);
+        this.accessor = accessor;
+        this.index = index;
+        int flags = accessor.getFlags(index);
+        if ((flags & BeanAccessor.INCLUDE) != 0) {
+            included = Boolean.TRUE;
+        } else if ((flags & BeanAccessor.EXCLUDE) != 0) {
+            included = Boolean.FALSE;
+        }
+        if ((flags >>> BeanAccessor.OMIT_SHIFT) != 0) {
+            omissions = flags >>> BeanAccessor.OMIT_SHIFT;
+        }
+        if (accessor.getTransformer(index) != null) {
+            transformer = new DeferredInstantiation<Transformer>(accessor.getTransformer(index));
+        }
+        if (accessor.getObjectFactory(index) != null) {
+            objectFactory = new DeferredInstantiation<ObjectFactory>(accessor.getObjectFactory(index));
+        }
+    }
+
     private void processAnnotation(JSON annotation) {
         jsonName = annotation.name().length() > 0 ? annotation.name() : name;
         transformer = annotation.transformer() == Transformer.class ? null : new DeferredInstantiation<Transformer>( annotation.transformer() );
         objectFactory = annotation.objectFactory() == ObjectFactory.class ? null : new DeferredInstantiation<ObjectFactory>( annotation.objectFactory() );
         included = annotation.include();
+        omissions = annotation.omit().length > 0 ? Omit.mask(annotation.omit()) : -1;
     }
 
     public String getName() {
@@ -83,6 +124,22 @@ public class BeanProperty {
         return writeMethod;
     }
 
+    /**
+     * @return the generic type a value has to be bound to before it's written to this property, either
+     * the setter's parameter type or the field's type.  It's resolved once and remembered.
+     */
+    public Type getWriteType() {
+        if (writeType == null) {
+            Method wm = getWriteMethod();
+            if (wm != null) {
+                writeType = wm.getGenericParameterTypes()[0];
+            } else if (property != null) {
+                writeType = property.getGenericType();
+            }
+        }
+        return writeType;
+    }
+
     public Collection<Method> getWriteMethods() {
         return writeMethods.values();
     }
@@ -115,7 +172,32 @@ public class BeanProperty {
         return included;
     }
 
+    /**
+     * @return the bits of the {@link Omit} values given to the property's {@link JSON} annotation, or -1
+     * if the serializer's settings apply.
+     */
+    public int getOmissions() {
+        return omissions;
+    }
+
+    /**
+     * @return the json name already quoted and escaped, or null if it has to be escaped when it's written.
+     */
+    public String getEncodedName() {
+        return accessor != null ? accessor.getEncodedName(index) : null;
+    }
+
+    /**
+     * @return true if the property is read and written through a generated {@link BeanAccessor}.
+     */
+    public boolean isGenerated() {
+        return accessor != null;
+    }
+
     public Object getValue(Object instance) {
+        if (accessor != null) {
+            return accessor.get(instance, index);
+        }
         try {
             Method rm = getReadMethod();
             if (rm != null ) {
@@ -132,17 +214,30 @@ public class BeanProperty {
         }
     }
 
+    /**
+     * Writes a value through the property's generated {@link BeanAccessor}.
+     */
+    public void setValue(Object instance, Object value) {
+        if (accessor == null) {
+            throw new IllegalStateException(name + " isn't written through a generated accessor");
+        }
+        accessor.set(instance, index, value);
+    }
+
     public Boolean isReadable() { 
+        if (accessor != null) return (accessor.getFlags(index) & BeanAccessor.READABLE) != 0;
         Method rm = getReadMethod();
         return rm != null && !Modifier.isStatic(rm.getModifiers()) || property != null && !Modifier.isStatic(property.getModifiers()) && !Modifier.isTransient(property.getModifiers());
     }
 
     public Boolean isWritable() {
+        if (accessor != null) return (accessor.getFlags(index) & BeanAccessor.WRITABLE) != 0;
         Method wm = getWriteMethod();
         return wm != null || property != null && Modifier.isPublic(property.getModifiers()) && !Modifier.isTransient(property.getModifiers());
     }
 
     public Boolean isTransient() {
+        if (accessor != null) return (accessor.getFlags(index) & BeanAccessor.TRANSIENT) != 0;
         return property != null && Modifier.isTransient( property.getModifiers() );
     }
 
@@ -159,6 +254,26 @@ public class BeanProperty {
         return transformer != null ? transformer.get() : null;
     }
 
+    /**
+     * @return the transformer given to the property's {@link JSON} annotation, wrapped the way
+     * JSONSerializer wraps the transformers it's given, or null if the annotation didn't give one.
+     */
+    public TransformerWrapper getWrappedTransformer() {
+        if (transformer == null) return null;
+        TransformerWrapper wrapped = wrappedTransformer;
+        if (wrapped == null) {
+            try {
+                wrapped = new TransformerWrapper(transformer.get());
+            } catch (InstantiationException e) {
+                throw new JSONException("Could not instantiate the transformer of property " + name, e);
+            } catch (IllegalAccessException e) {
+                throw new JSONException("Could not access the transformer of property " + name, e);
+            }
+            wrappedTransformer = wrapped;
+        }
+        return wrapped;
+    }
+
     public ObjectFactory getObjectFactory() throws InstantiationException, IllegalAccessException {
         return objectFactory != null ? objectFactory.get() : null;
     }
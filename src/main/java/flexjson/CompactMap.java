@@ -0,0 +1,227 @@
+package flexjson;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An insertion ordered Map for json objects, see {@link ObjectMapType#COMPACT}.  Keys and values are
+ * kept side by side in two arrays.  Up to {@link #LINEAR} keys are found by scanning the keys, which
+ * for keys canonicalized by a {@link SymbolTable} usually ends at an identity check.  Past that an
+ * open addressed table of positions into the arrays is built and kept up to date.
+ */
+final class CompactMap extends AbstractMap<String, Object> {
+
+    static final int LINEAR = 8;
+
+    private String[] keys = new String[4];
+    private Object[] values = new Object[4];
+    private int size;
+    private int[] table;
+    private Set<Entry<String, Object>> entries;
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf( key ) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf( key );
+        return i >= 0 ? values[i] : null;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int i = indexOf( key );
+        if( i >= 0 ) {
+            Object previous = values[i];
+            values[i] = value;
+            return previous;
+        }
+        append( key, value );
+        return null;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int i = indexOf( key );
+        if( i < 0 ) return null;
+        Object previous = values[i];
+        removeAt( i );
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        for( int i = 0; i < size; i++ ) {
+            keys[i] = null;
+            values[i] = null;
+        }
+        size = 0;
+        table = null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if( entries == null ) {
+            entries = new AbstractSet<Entry<String, Object>>() {
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new EntryIterator();
+                }
+
+                public int size() {
+                    return size;
+                }
+            };
+        }
+        return entries;
+    }
+
+    /**
+     * Adds a key without checking whether it's already present.
+     */
+    void append(String key, Object value) {
+        if( size == keys.length ) {
+            String[] k = new String[size * 2];
+            Object[] v = new Object[size * 2];
+            System.arraycopy( keys, 0, k, 0, size );
+            System.arraycopy( values, 0, v, 0, size );
+            keys = k;
+            values = v;
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+        if( table != null && size * 2 <= table.length ) {
+            insert( size - 1 );
+        } else if( size > LINEAR ) {
+            rehash();
+        }
+    }
+
+    private int indexOf(Object key) {
+        if( table == null ) {
+            int hash = key != null ? key.hashCode() : 0;
+            for( int i = 0; i < size; i++ ) {
+                String k = keys[i];
+                if( k == key || (k != null && key != null && k.hashCode() == hash && k.equals( key )) ) return i;
+            }
+            return -1;
+        }
+        int mask = table.length - 1;
+        for( int slot = spread( key ) & mask; ; slot = (slot + 1) & mask ) {
+            int position = table[slot];
+            if( position == 0 ) return -1;
+            String k = keys[position - 1];
+            if( k == key || (k != null && k.equals( key )) ) return position - 1;
+        }
+    }
+
+    private void removeAt(int i) {
+        System.arraycopy( keys, i + 1, keys, i, size - i - 1 );
+        System.arraycopy( values, i + 1, values, i, size - i - 1 );
+        size--;
+        keys[size] = null;
+        values[size] = null;
+        if( table != null ) {
+            if( size > LINEAR ) {
+                rehash();
+            } else {
+                table = null;
+            }
+        }
+    }
+
+    private void rehash() {
+        int capacity = Integer.highestOneBit( size * 4 );
+        table = new int[capacity];
+        for( int i = 0; i < size; i++ ) {
+            insert( i );
+        }
+    }
+
+    private void insert(int i) {
+        int mask = table.length - 1;
+        int slot = spread( keys[i] ) & mask;
+        while( table[slot] != 0 ) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = i + 1;
+    }
+
+    private static int spread(Object key) {
+        int h = key != null ? key.hashCode() : 0;
+        return h ^ (h >>> 16);
+    }
+
+    private class EntryIterator implements Iterator<Entry<String, Object>> {
+        private int next;
+        private int last = -1;
+
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        public Entry<String, Object> next() {
+            if( next >= size ) throw new NoSuchElementException();
+            last = next++;
+            return new CompactEntry( last );
+        }
+
+        public void remove() {
+            if( last < 0 ) throw new IllegalStateException();
+            removeAt( last );
+            next = last;
+            last = -1;
+        }
+    }
+
+    private class CompactEntry implements Map.Entry<String, Object> {
+        private final int i;
+
+        CompactEntry(int i) {
+            this.i = i;
+        }
+
+        public String getKey() {
+            return keys[i];
+        }
+
+        public Object getValue() {
+            return values[i];
+        }
+
+        public Object setValue(Object value) {
+            Object previous = values[i];
+            values[i] = value;
+            return previous;
+        }
+
+        public boolean equals(Object o) {
+            if( !(o instanceof Map.Entry) ) return false;
+            Map.Entry e = (Map.Entry) o;
+            return eq( getKey(), e.getKey() ) && eq( getValue(), e.getValue() );
+        }
+
+        public int hashCode() {
+            return (getKey() == null ? 0 : getKey().hashCode()) ^ (getValue() == null ? 0 : getValue().hashCode());
+        }
+
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+
+    private static boolean eq(Object a, Object b) {
+        return a == null ? b == null : a.equals( b );
+    }
+}
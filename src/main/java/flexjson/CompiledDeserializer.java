@@ -0,0 +1,447 @@
+package flexjson;
+
+import flexjson.factories.ExistingObjectFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * An immutable snapshot of a {@link JSONDeserializer}'s configuration made by
+ * {@link JSONDeserializer#compile()}.  The ObjectFactories, the path factories and the classes
+ * resolved to factories are prepared once and shared by every call, so deserializing only allocates
+ * the parser and the objects being returned.  Changes made to the JSONDeserializer afterwards don't
+ * affect it.
+ * </p>
+ *
+ * <pre>
+ * private static final CompiledDeserializer&lt;Person&gt; PEOPLE = new JSONDeserializer&lt;Person&gt;()
+ *     .use( "phones.values", Phone.class )
+ *     .compile( Person.class );
+ *
+ * Person person = PEOPLE.deserialize( json );
+ * </pre>
+ *
+ * <p>
+ * A CompiledDeserializer can be shared between threads as long as the ObjectFactories, ClassLocators
+ * and {@link TypeRegistry} given to the JSONDeserializer can be.  The ones that ship with Flexjson can.
+ * </p>
+ */
+public class CompiledDeserializer<T> {
+
+    static final Charset UTF8 = Charset.forName( "UTF-8" );
+
+    private final Map<Class,ObjectFactory> factories;
+    private final PathTrie pathFactories;
+    private final ConcurrentMap<Class,ObjectFactory> resolvedFactories = new ConcurrentHashMap<Class,ObjectFactory>();
+    private final TypeRegistry typeRegistry;
+    private final SymbolTable symbols;
+    private final boolean strict;
+    private final DuplicateKeyPolicy duplicateKeys;
+    private final ObjectMapType objectMapType;
+    private final boolean lazy;
+    private final ParallelArrayParser parallel;
+    private final Type root;
+
+    CompiledDeserializer(Map<Class,ObjectFactory> typeFactories, Map<Path,ObjectFactory> pathFactories, TypeRegistry typeRegistry, SymbolTable symbols,
+                         boolean strict, DuplicateKeyPolicy duplicateKeys, ObjectMapType objectMapType, boolean lazy, ParallelArrayParser parallel, Type root) {
+        Map<Class,ObjectFactory> factories = ObjectBinder.defaultFactories();
+        factories.putAll( typeFactories );
+        this.factories = Collections.unmodifiableMap( factories );
+        this.pathFactories = new PathTrie();
+        for( Map.Entry<Path,ObjectFactory> entry : pathFactories.entrySet() ) {
+            this.pathFactories.put( entry.getKey().getPath(), entry.getValue() );
+        }
+        this.typeRegistry = typeRegistry != null ? typeRegistry : new TypeRegistry();
+        this.symbols = symbols;
+        this.strict = strict;
+        this.duplicateKeys = duplicateKeys;
+        this.objectMapType = objectMapType;
+        this.lazy = lazy;
+        this.parallel = lazy ? null : parallel;
+        this.root = root;
+    }
+
+    /**
+     * Deserialize the given json formatted input into a Java object.
+     *
+     * @param input a json formatted string.
+     * @return an Java instance deserialized from the json input.
+     */
+    public T deserialize( String input ) {
+        return bind( parse( input ), root, null );
+    }
+
+    /**
+     * Same as {@link #deserialize(String)}, but uses an instance of
+     * java.io.Reader as json input.
+     *
+     * @param input the stream where the json input is coming from.
+     * @return an Java instance deserialized from the java.io.Reader's input.
+     */
+    public T deserialize( Reader input ) {
+        return bind( parse( input ), root, null );
+    }
+
+    /**
+     * Deserialize the UTF-8 encoded json in the given file.  The file is memory mapped and decoded
+     * straight from the mapped bytes.
+     *
+     * @param input the file the json is read from.
+     * @return an Java instance deserialized from the file.
+     */
+    public T deserialize( File input ) {
+        return deserialize( input, (Class)null );
+    }
+
+    public T deserialize( File input, Class root ) {
+        Reader reader = open( input );
+        try {
+            return bind( parse( reader ), root != null ? root : this.root, null );
+        } finally {
+            close( reader );
+        }
+    }
+
+    /**
+     * Deserialize the given json input using the given Class as the type of the initial object in
+     * place of the root class this was compiled with.
+     *
+     * @param input a json formatted string.
+     * @param root a Class used to create the initial object.
+     * @return the object created from the given json input.
+     */
+    public T deserialize( String input, Class root ) {
+        return bind( parse( input ), root, null );
+    }
+
+    public T deserialize( Reader input, Class root ) {
+        return bind( parse( input ), root, null );
+    }
+
+    /**
+     * Deserialize the value found at the given path.  The path can be in dot notation (data.items.0)
+     * or a JSON Pointer (/data/items/0).  Everything outside of the path is skipped over without being
+     * decoded.
+     *
+     * @param input a json formatted string.
+     * @param path a path to the value to deserialize.
+     * @return the object created from the value at the path.
+     */
+    public T deserialize( String input, String path ) {
+        return bind( parse( input, path ), root, null );
+    }
+
+    public T deserialize( Reader input, String path ) {
+        return bind( parse( input, path ), root, null );
+    }
+
+    public T deserialize( String input, String path, Class root ) {
+        return bind( parse( input, path ), root, null );
+    }
+
+    public T deserialize( Reader input, String path, Class root ) {
+        return bind( parse( input, path ), root, null );
+    }
+
+    /**
+     * Deserialize the given json input, and use the given ObjectFactory to create the initial
+     * object to deserialize into.  The factory is only used for this call.
+     *
+     * @param input a json formatted string.
+     * @param factory an ObjectFactory used to create the initial object.
+     * @return the object created from the given json input.
+     */
+    public T deserialize( String input, ObjectFactory factory ) {
+        return bind( parse( input ), root, factory );
+    }
+
+    public T deserialize( Reader input, ObjectFactory factory ) {
+        return bind( parse( input ), root, factory );
+    }
+
+    public T deserialize( String input, String path, ObjectFactory factory ) {
+        return bind( parse( input, path ), root, factory );
+    }
+
+    public T deserialize( Reader input, String path, ObjectFactory factory ) {
+        return bind( parse( input, path ), root, factory );
+    }
+
+    /**
+     * Deserialize the given input into the existing object target.
+     *
+     * @param input a json formatted string.
+     * @param target an instance to set values into from the json string.
+     * @return will return a reference to target.
+     */
+    public T deserializeInto( String input, T target ) {
+        return deserialize( input, new ExistingObjectFactory( target ) );
+    }
+
+    public T deserializeInto( Reader input, T target ) {
+        return deserialize( input, new ExistingObjectFactory( target ) );
+    }
+
+    public T deserializeInto( String input, String path, T target ) {
+        return deserialize( input, path, new ExistingObjectFactory( target ) );
+    }
+
+    public T deserializeInto( Reader input, String path, T target ) {
+        return deserialize( input, path, new ExistingObjectFactory( target ) );
+    }
+
+    /**
+     * Deserialize the values found at several paths out of the given json input in a single pass.
+     *
+     * @param input a json formatted string.
+     * @param paths the paths to the values you want to deserialize.
+     * @return a Map from each path to the object deserialized from it.  Paths that aren't present in the input
+     * are left out of the Map.
+     */
+    public Map<String,Object> extract( String input, String... paths ) {
+        return lazy ? extract( index( input ).getRoot(), paths ) : extract( tokener( input ), paths );
+    }
+
+    public Map<String,Object> extract( Reader input, String... paths ) {
+        return lazy ? extract( index( input ).getRoot(), paths ) : extract( tokener( input ), paths );
+    }
+
+    /**
+     * Read the elements of a top-level json array one at a time.  See {@link JSONIterator}.
+     *
+     * @param input the stream where the json array is coming from.
+     * @return an iterator over the bound elements of the array.
+     */
+    public JSONIterator<T> iterate( Reader input ) {
+        return new JSONIterator<T>( input, this, root, true, null, 0 );
+    }
+
+    /**
+     * Same as {@link #iterate(java.io.Reader)}, but each element is bound into an instance of the given Class.
+     *
+     * @param input the stream where the json array is coming from.
+     * @param root the Class each element is bound into.
+     * @return an iterator over the bound elements of the array.
+     */
+    public JSONIterator<T> iterate( Reader input, Class root ) {
+        return new JSONIterator<T>( input, this, root, true, null, 0 );
+    }
+
+    /**
+     * Same as {@link #iterate(java.io.Reader)}, but reads UTF-8 encoded json from an InputStream.
+     *
+     * @param input the stream where the json array is coming from.
+     * @return an iterator over the bound elements of the array.
+     */
+    public JSONIterator<T> iterate( InputStream input ) {
+        return iterate( new InputStreamReader( input, UTF8 ) );
+    }
+
+    public JSONIterator<T> iterate( InputStream input, Class root ) {
+        return iterate( new InputStreamReader( input, UTF8 ), root );
+    }
+
+    /**
+     * Same as {@link #iterate(java.io.Reader, Class)}, but memory maps the given UTF-8 encoded file.
+     *
+     * @param input the file the json array is read from.
+     * @param root the Class each element is bound into.
+     * @return an iterator over the bound elements of the array.
+     */
+    public JSONIterator<T> iterate( File input, Class root ) {
+        return iterate( open( input ), root );
+    }
+
+    /**
+     * Read a series of json documents, like newline delimited json (JSON Lines) or documents written
+     * back to back, one at a time.  See {@link JSONIterator}.
+     *
+     * @param input the stream where the json documents are coming from.
+     * @param root the Class each document is bound into.
+     * @return an iterator over the bound documents.
+     */
+    public JSONIterator<T> iterateDocuments( Reader input, Class root ) {
+        return new JSONIterator<T>( input, this, root, false, null, 0 );
+    }
+
+    public JSONIterator<T> iterateDocuments( InputStream input, Class root ) {
+        return iterateDocuments( new InputStreamReader( input, UTF8 ), root );
+    }
+
+    public JSONIterator<T> iterateDocuments( File input, Class root ) {
+        return iterateDocuments( open( input ), root );
+    }
+
+    /**
+     * Same as {@link #iterateDocuments(java.io.Reader, Class)}, but documents are parsed and bound on the
+     * given executor while the iterating thread reads ahead.  Documents are returned in the order
+     * they were read.
+     *
+     * @param input the stream where the json documents are coming from.
+     * @param root the Class each document is bound into.
+     * @param executor the executor documents are parsed and bound on.
+     * @param window the number of documents read ahead and in flight at once.
+     * @return an iterator over the bound documents.
+     */
+    public JSONIterator<T> iterateDocuments( Reader input, Class root, ExecutorService executor, int window ) {
+        return new JSONIterator<T>( input, this, root, false, executor, window );
+    }
+
+    public JSONIterator<T> iterateDocuments( InputStream input, Class root, ExecutorService executor, int window ) {
+        return iterateDocuments( new InputStreamReader( input, UTF8 ), root, executor, window );
+    }
+
+    public JSONIterator<T> iterateDocuments( File input, Class root, ExecutorService executor, int window ) {
+        return iterateDocuments( open( input ), root, executor, window );
+    }
+
+    /**
+     * @param rootFactory creates the root object for a single call, or null.
+     * @return a binder sharing the compiled factories.
+     */
+    ObjectBinder createObjectBinder( ObjectFactory rootFactory ) {
+        return new ObjectBinder( factories, pathFactories, resolvedFactories, typeRegistry, rootFactory );
+    }
+
+    T bind( Object value, Type root, ObjectFactory rootFactory ) {
+        return (T)createObjectBinder( rootFactory ).bind( value, root );
+    }
+
+    Object parse( String input ) {
+        if( parallel != null ) {
+            List<Object> elements = parallel.parse( input, this );
+            if( elements != null ) return elements;
+        }
+        return lazy ? index( input ).getRoot() : parse( tokener( input ) );
+    }
+
+    private Object parse( Reader input ) {
+        // the whole input has to be in memory before it can be split
+        if( parallel != null ) return parse( read( input ) );
+        return lazy ? index( input ).getRoot() : parse( tokener( input ) );
+    }
+
+    private static Reader open( File input ) {
+        try {
+            return new MappedFileReader( input, UTF8 );
+        } catch( IOException e ) {
+            throw new JSONException( "Could not read " + input, e );
+        }
+    }
+
+    private static void close( Reader reader ) {
+        try {
+            reader.close();
+        } catch( IOException e ) {
+            throw new JSONException( e );
+        }
+    }
+
+    private static String read( Reader input ) {
+        try {
+            StringBuilder text = new StringBuilder();
+            char[] buffer = new char[8192];
+            for( int n = input.read( buffer ); n >= 0; n = input.read( buffer ) ) {
+                text.append( buffer, 0, n );
+            }
+            return text.toString();
+        } catch( IOException e ) {
+            throw new JSONException( e );
+        }
+    }
+
+    private Object parse( String input, String path ) {
+        Path target = toPath( path );
+        return lazy ? resolve( index( input ).getRoot(), target ) :
+                tokener( input ).nextValues( Collections.singleton( target ) ).get( target );
+    }
+
+    private Object parse( Reader input, String path ) {
+        Path target = toPath( path );
+        return lazy ? resolve( index( input ).getRoot(), target ) :
+                tokener( input ).nextValues( Collections.singleton( target ) ).get( target );
+    }
+
+    private static Object resolve( Object root, Path target ) {
+        Object value = JSONTokener.resolve( root, target.getPath(), 0 );
+        return value != JSONTokener.MISSING ? value : null;
+    }
+
+    private Object parse( JSONTokener tokener ) {
+        Object value = tokener.nextValue();
+        if( strict && tokener.nextClean() != 0 ) {
+            throw tokener.syntaxError( "Unexpected text after the json value" );
+        }
+        return value;
+    }
+
+    boolean isStrict() {
+        return strict;
+    }
+
+    private JSONTokener tokener( String input ) {
+        return configure( new JSONTokener( input ).withSymbols( symbols ) );
+    }
+
+    JSONTokener tokener( Reader input ) {
+        return configure( new JSONTokener( input, symbols ) );
+    }
+
+    private JSONTokener configure( JSONTokener tokener ) {
+        return tokener.strict( strict ).duplicateKeys( duplicateKeys ).objectMapType( objectMapType );
+    }
+
+    private JSONIndex index( String input ) {
+        return JSONIndex.parse( input ).withSymbols( symbols );
+    }
+
+    private JSONIndex index( Reader input ) {
+        return JSONIndex.parse( input ).withSymbols( symbols );
+    }
+
+    private Map<String,Object> extract( JSONTokener tokener, String... paths ) {
+        Map<Path,String> targets = new LinkedHashMap<Path,String>();
+        for( String path : paths ) {
+            targets.put( toPath( path ), path );
+        }
+        Map<Path,Object> values = tokener.nextValues( targets.keySet() );
+        ObjectBinder binder = createObjectBinder( null );
+        Map<String,Object> result = new LinkedHashMap<String,Object>();
+        for( Path target : targets.keySet() ) {
+            if( values.containsKey( target ) ) {
+                result.put( targets.get( target ), binder.bind( values.get( target ) ) );
+            }
+        }
+        return result;
+    }
+
+    private Map<String,Object> extract( Object root, String... paths ) {
+        ObjectBinder binder = createObjectBinder( null );
+        Map<String,Object> result = new LinkedHashMap<String,Object>();
+        for( String path : paths ) {
+            Object value = JSONTokener.resolve( root, toPath( path ).getPath(), 0 );
+            if( value != JSONTokener.MISSING ) {
+                result.put( path, binder.bind( value ) );
+            }
+        }
+        return result;
+    }
+
+    private static Path toPath( String path ) {
+        if( path == null ) return new Path();
+        return path.startsWith("/") ? Path.parsePointer( path ) : Path.parse( path );
+    }
+}
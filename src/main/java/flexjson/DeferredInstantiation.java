@@ -1,18 +1,27 @@
 package flexjson;
 
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates an instance of a class the first time it's asked for and hands out that same instance
+ * after that.  Threads racing on the first call may each create an instance, but only the first one
+ * published is ever returned, so callers never need to lock.
+ */
 public class DeferredInstantiation<T> {
 
-    private Class<? extends T> clazz;
-    private T instantiate;
+    private final Class<? extends T> clazz;
+    private final AtomicReference<T> instance = new AtomicReference<T>();
 
     public DeferredInstantiation(Class<? extends T> clazz) {
         this.clazz = clazz;
     }
 
-    public synchronized T get() throws IllegalAccessException, InstantiationException {
-        if( instantiate == null ) {
-            instantiate = clazz.newInstance();
+    public T get() throws IllegalAccessException, InstantiationException {
+        T current = instance.get();
+        if( current == null ) {
+            instance.compareAndSet( null, clazz.newInstance() );
+            current = instance.get();
         }
-        return instantiate;
+        return current;
     }
 }
@@ -0,0 +1,30 @@
+package flexjson;
+
+/**
+ * What the parser does when a json object has the same key more than once.  Every policy costs a
+ * single hash lookup per key.  Set it with {@link JSONDeserializer#duplicateKeys(DuplicateKeyPolicy)}.
+ */
+public enum DuplicateKeyPolicy {
+
+    /**
+     * Throw a {@link JSONException}.  This is the default.
+     */
+    ERROR,
+
+    /**
+     * Keep the value seen first and drop the rest.
+     */
+    FIRST_WINS,
+
+    /**
+     * Keep the value seen last, which is what most javascript engines do.
+     */
+    LAST_WINS,
+
+    /**
+     * Don't look for duplicates at all.  With {@link ObjectMapType#COMPACT} keys are appended without
+     * comparing them to the keys already in the object, so use it only for input known to have unique
+     * keys.  Any duplicates are kept as separate entries.
+     */
+    UNCHECKED
+}
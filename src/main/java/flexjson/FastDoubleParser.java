@@ -0,0 +1,163 @@
+package flexjson;
+
+import java.math.BigInteger;
+
+/**
+ * Internal class used by {@link JsonNumber} to turn a decimal significand and a power of ten
+ * into a correctly rounded double without going through Double.parseDouble(String).  Small
+ * values take Clinger's fast path where a single floating point multiply or divide is exact.
+ * Everything else uses the Eisel-Lemire algorithm which approximates w * 10^q with a 128 bit
+ * truncated power of five.  In the rare cases where that approximation can't decide how to
+ * round this falls back to Double.parseDouble.
+ */
+final class FastDoubleParser {
+
+    private static final int SMALLEST_POWER = -342;
+    private static final int LARGEST_POWER = 308;
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // the 128 most significant bits of 5^q for q in [-342, 308], high word followed by low word
+    private static final long[] POWERS_OF_FIVE = new long[ 2 * (LARGEST_POWER - SMALLEST_POWER + 1) ];
+
+    private static final long MASK_32 = 0xFFFFFFFFL;
+
+    static {
+        BigInteger two128 = BigInteger.ONE.shiftLeft(128);
+        BigInteger two127 = BigInteger.ONE.shiftLeft(127);
+        BigInteger five = BigInteger.valueOf(5);
+        for( int q = SMALLEST_POWER; q <= LARGEST_POWER; q++ ) {
+            BigInteger value;
+            if( q < 0 ) {
+                BigInteger power = five.pow( -q );
+                int z = power.bitLength();
+                if( power.bitCount() == 1 ) z--;
+                if( q >= -27 ) {
+                    value = BigInteger.ONE.shiftLeft( z + 127 ).divide( power ).add( BigInteger.ONE );
+                } else {
+                    value = BigInteger.ONE.shiftLeft( 2 * z + 128 ).divide( power ).add( BigInteger.ONE );
+                    int excess = value.bitLength() - 128;
+                    if( excess > 0 ) value = value.shiftRight( excess );
+                }
+            } else {
+                value = five.pow( q );
+                if( value.compareTo( two127 ) < 0 ) {
+                    value = value.shiftLeft( 128 - value.bitLength() );
+                } else if( value.compareTo( two128 ) >= 0 ) {
+                    value = value.shiftRight( value.bitLength() - 128 );
+                }
+            }
+            int index = 2 * (q - SMALLEST_POWER);
+            POWERS_OF_FIVE[index] = value.shiftRight(64).longValue();
+            POWERS_OF_FIVE[index + 1] = value.longValue();
+        }
+    }
+
+    private FastDoubleParser() {
+    }
+
+    /**
+     * @param significand the decimal digits of the number as a signed long.
+     * @param exponent the power of ten the significand is multiplied by.
+     * @return the double closest to significand * 10^exponent.
+     */
+    static double toDouble( long significand, int exponent ) {
+        boolean negative = significand < 0;
+        long w = negative ? -significand : significand;
+        if( w == 0 || exponent == 0 ) {
+            return (double)significand;
+        }
+        if( w <= (1L << 53) && exponent >= -22 && exponent <= 22 ) {
+            double d = exponent < 0 ? w / POWERS_OF_TEN[-exponent] : w * POWERS_OF_TEN[exponent];
+            return negative ? -d : d;
+        }
+        double d = eiselLemire( w, exponent, negative );
+        if( Double.isNaN( d ) ) {
+            d = Double.parseDouble( (negative ? "-" : "") + w + "E" + exponent );
+        }
+        return d;
+    }
+
+    /**
+     * @return the correctly rounded double, or NaN when the result can't be determined this way.
+     */
+    private static double eiselLemire( long w, int q, boolean negative ) {
+        if( q < SMALLEST_POWER ) {
+            return negative ? -0.0 : 0.0;
+        }
+        if( q > LARGEST_POWER ) {
+            return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        int lz = Long.numberOfLeadingZeros( w );
+        w <<= lz;
+        int index = 2 * (q - SMALLEST_POWER);
+        long firstHigh = multiplyHigh( w, POWERS_OF_FIVE[index] );
+        long firstLow = w * POWERS_OF_FIVE[index];
+        if( (firstHigh & 0x1FF) == 0x1FF ) {
+            long secondHigh = multiplyHigh( w, POWERS_OF_FIVE[index + 1] );
+            firstLow += secondHigh;
+            if( unsignedLess( firstLow, secondHigh ) ) {
+                firstHigh++;
+            }
+            if( firstLow == -1L ) {
+                return Double.NaN;
+            }
+        }
+        long upperBit = firstHigh >>> 63;
+        long mantissa = firstHigh >>> (upperBit + 9);
+        lz += (int)(1 ^ upperBit);
+
+        long exponent = (((152170 + 65536) * q) >> 16) + 1024 + 63 - lz;
+        if( exponent <= 0 ) {
+            if( -exponent + 1 >= 64 ) {
+                return negative ? -0.0 : 0.0;
+            }
+            mantissa >>>= -exponent + 1;
+            mantissa += (mantissa & 1);
+            mantissa >>>= 1;
+            exponent = mantissa < (1L << 52) ? 0 : 1;
+            return toDouble( mantissa, exponent, negative );
+        }
+        if( unsignedLess( firstLow, 2 ) && q >= -4 && q <= 23 && (mantissa & 3) == 1 ) {
+            if( (mantissa << (upperBit + 64 - 53 - 2)) == firstHigh ) {
+                mantissa &= ~1L;
+            }
+        }
+        mantissa += (mantissa & 1);
+        mantissa >>>= 1;
+        if( mantissa >= (1L << 53) ) {
+            mantissa = 1L << 52;
+            exponent++;
+        }
+        mantissa &= ~(1L << 52);
+        if( exponent > 2046 ) {
+            return Double.NaN;
+        }
+        return toDouble( mantissa, exponent, negative );
+    }
+
+    private static double toDouble( long mantissa, long exponent, boolean negative ) {
+        long bits = mantissa | (exponent << 52);
+        if( negative ) bits |= 1L << 63;
+        return Double.longBitsToDouble( bits );
+    }
+
+    private static boolean unsignedLess( long a, long b ) {
+        return (a + Long.MIN_VALUE) < (b + Long.MIN_VALUE);
+    }
+
+    private static long multiplyHigh( long a, long b ) {
+        long aLow = a & MASK_32;
+        long aHigh = a >>> 32;
+        long bLow = b & MASK_32;
+        long bHigh = b >>> 32;
+        long lowLow = aLow * bLow;
+        long highLow = aHigh * bLow;
+        long lowHigh = aLow * bHigh;
+        long cross = (lowLow >>> 32) + (highLow & MASK_32) + lowHigh;
+        return aHigh * bHigh + (highLow >>> 32) + (cross >>> 32);
+    }
+}
@@ -0,0 +1,364 @@
+package flexjson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>
+ * Keeps the json written for objects so serializing them again copies the text instead of walking
+ * the objects.  Only classes registered with {@link #cache(Class)} or {@link #cache(Class, Versioner)}
+ * are cached, and the cache is used by every {@link JSONSerializer} it's given to with
+ * {@link JSONSerializer#fragmentCache(FragmentCache)}.
+ * </p>
+ *
+ * <p>
+ * A fragment is kept for the object, the serializer and its configuration, the path the object was
+ * written at, and whether it was a deep serialization, so changing a serializer's includes, excludes or
+ * transformers never hands out text written under the old rules.  Objects are either keyed by their
+ * identity, which is only safe for objects that don't change after they're first written, or by a
+ * version their {@link Versioner} returns, like an id and a modification count.  A fragment doesn't
+ * record which ancestors were skipped to avoid cycles, so cache objects whose properties don't lead
+ * back to objects that contain them.  Pretty printed output isn't cached.
+ * </p>
+ *
+ * <p>
+ * The cache holds about the given number of characters.  Fragments are kept in a concurrent map and
+ * hits only stamp the time they were used, so threads never wait on each other to read.  Once the
+ * fragments grow past the maximum size one thread evicts the least recently used of them until they
+ * take up three quarters of it, so recency is approximate and the size can overshoot briefly while
+ * other threads keep storing.  When several threads miss on the same fragment at once only one of
+ * them writes it and the others wait for its text.
+ * </p>
+ */
+public class FragmentCache {
+
+    /**
+     * Works out the version of an object.  Two objects with equal versions must be written the same.
+     */
+    public interface Versioner {
+        /**
+         * @param object an instance of the class this versioner was registered for.
+         * @return the object's version, or null to write the object without the cache.
+         */
+        Object versionOf(Object object);
+    }
+
+    /**
+     * Writes a fragment that missed the cache.
+     */
+    interface Renderer {
+        String render();
+    }
+
+    private static final Versioner IDENTITY = new Versioner() {
+        public Object versionOf(Object object) {
+            return new Identity( object );
+        }
+    };
+    private static final Versioner NONE = new Versioner() {
+        public Object versionOf(Object object) {
+            return null;
+        }
+    };
+
+    private final long maximumSize;
+    private final ConcurrentMap<Key,Entry> fragments = new ConcurrentHashMap<Key,Entry>();
+    private final AtomicLong weight = new AtomicLong();
+    private final ReentrantLock evicting = new ReentrantLock();
+    private final ConcurrentMap<Class,Versioner> registered = new ConcurrentHashMap<Class,Versioner>();
+    private final ConcurrentMap<Class,Versioner> resolved = new ConcurrentHashMap<Class,Versioner>();
+    private final ConcurrentMap<Key,Pending> pending = new ConcurrentHashMap<Key,Pending>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param maximumSize the number of characters the cached fragments may add up to.
+     */
+    public FragmentCache(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Cache instances of the class and its subclasses keyed by their identity.  Only use it for
+     * objects that aren't changed after they're serialized.
+     *
+     * @param type the class to cache.
+     * @return this FragmentCache for chaining configurations
+     */
+    public FragmentCache cache(Class type) {
+        return cache( type, IDENTITY );
+    }
+
+    /**
+     * Cache instances of the class and its subclasses keyed by the version the versioner returns.
+     *
+     * @param type the class to cache.
+     * @param versioner works out the version of each instance.
+     * @return this FragmentCache for chaining configurations
+     */
+    public FragmentCache cache(Class type, Versioner versioner) {
+        registered.put( type, versioner );
+        resolved.clear();
+        return this;
+    }
+
+    /**
+     * @return the key of the object's fragment, or null if the object isn't cached.
+     */
+    Key keyFor(Object object, long configuration, SerializationType serializationType, Path path, boolean omitClassHint) {
+        Object version = versionerFor( object.getClass() ).versionOf( object );
+        if( version == null ) return null;
+        return new Key( object.getClass(), version, configuration, serializationType, path.getPath().toArray(), omitClassHint );
+    }
+
+    private Versioner versionerFor(Class clazz) {
+        Versioner versioner = resolved.get( clazz );
+        if( versioner == null ) {
+            versioner = NONE;
+            for( Class current = clazz; current != null; current = current.getSuperclass() ) {
+                Versioner found = registered.get( current );
+                if( found != null ) {
+                    versioner = found;
+                    break;
+                }
+            }
+            resolved.put( clazz, versioner );
+        }
+        return versioner;
+    }
+
+    /**
+     * @param key the fragment's key.
+     * @param wait true to wait for another thread already writing the fragment.  Threads that are
+     * writing a fragment themselves must not wait, or two of them could wait on each other.
+     * @param renderer writes the fragment on a miss.
+     * @return the fragment.
+     */
+    String get(Key key, boolean wait, Renderer renderer) {
+        String fragment = lookup( key );
+        if( fragment != null ) {
+            hits.incrementAndGet();
+            return fragment;
+        }
+
+        Pending mine = new Pending();
+        Pending other = pending.putIfAbsent( key, mine );
+        if( other != null && wait ) {
+            fragment = other.await();
+            if( fragment != null ) {
+                coalesced.incrementAndGet();
+                return fragment;
+            }
+        }
+
+        misses.incrementAndGet();
+        try {
+            fragment = renderer.render();
+            store( key, fragment );
+            return fragment;
+        } finally {
+            if( other == null ) {
+                pending.remove( key );
+                mine.done( fragment );
+            }
+        }
+    }
+
+    private String lookup(Key key) {
+        Entry entry = fragments.get( key );
+        if( entry == null ) return null;
+        entry.used = System.nanoTime();
+        return entry.fragment;
+    }
+
+    private void store(Key key, String fragment) {
+        if( fragment.length() > maximumSize ) return;
+        Entry previous = fragments.put( key, new Entry( fragment ) );
+        long total = weight.addAndGet( fragment.length() - (previous != null ? previous.fragment.length() : 0) );
+        // whoever gets the lock evicts for everybody, the rest carry on
+        if( total > maximumSize && evicting.tryLock() ) {
+            try {
+                evict();
+            } finally {
+                evicting.unlock();
+            }
+        }
+    }
+
+    private void evict() {
+        List<Map.Entry<Key,Entry>> entries = new ArrayList<Map.Entry<Key,Entry>>( fragments.entrySet() );
+        Collections.sort( entries, new Comparator<Map.Entry<Key,Entry>>() {
+            public int compare(Map.Entry<Key,Entry> a, Map.Entry<Key,Entry> b) {
+                long x = a.getValue().used;
+                long y = b.getValue().used;
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+        } );
+        long target = maximumSize - maximumSize / 4;
+        for( Iterator<Map.Entry<Key,Entry>> i = entries.iterator(); weight.get() > target && i.hasNext(); ) {
+            Map.Entry<Key,Entry> oldest = i.next();
+            if( fragments.remove( oldest.getKey(), oldest.getValue() ) ) {
+                weight.addAndGet( -oldest.getValue().fragment.length() );
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * @return the number of fragments found in the cache.
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of fragments that had to be written.
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of misses that were served by waiting for another thread writing the same fragment.
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return the number of fragments evicted to stay within the maximum size.
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * @return the share of lookups that didn't write the fragment, between 0 and 1.
+     */
+    public double getHitRate() {
+        long served = hits.get() + coalesced.get();
+        long total = served + misses.get();
+        return total == 0 ? 0 : (double)served / total;
+    }
+
+    /**
+     * @return the number of cached fragments.
+     */
+    public int size() {
+        return fragments.size();
+    }
+
+    /**
+     * @return the number of characters in the cached fragments.
+     */
+    public long weight() {
+        return weight.get();
+    }
+
+    /**
+     * Throw away every fragment, for example after cached objects changed.
+     */
+    public void clear() {
+        for( Iterator<Entry> i = fragments.values().iterator(); i.hasNext(); ) {
+            Entry entry = i.next();
+            i.remove();
+            weight.addAndGet( -entry.fragment.length() );
+        }
+    }
+
+    static final class Key {
+        private final Class type;
+        private final Object version;
+        private final long configuration;
+        private final SerializationType serializationType;
+        private final Object[] path;
+        private final boolean omitClassHint;
+        private final int hash;
+
+        Key(Class type, Object version, long configuration, SerializationType serializationType, Object[] path, boolean omitClassHint) {
+            this.type = type;
+            this.version = version;
+            this.configuration = configuration;
+            this.serializationType = serializationType;
+            this.path = path;
+            this.omitClassHint = omitClassHint;
+            int h = type.hashCode();
+            h = 31 * h + version.hashCode();
+            h = 31 * h + (int)(configuration ^ (configuration >>> 32));
+            h = 31 * h + serializationType.hashCode();
+            h = 31 * h + Arrays.hashCode( path );
+            this.hash = 31 * h + (omitClassHint ? 1 : 0);
+        }
+
+        public boolean equals(Object o) {
+            if( this == o ) return true;
+            if( !(o instanceof Key) ) return false;
+            Key that = (Key)o;
+            return hash == that.hash && type == that.type && configuration == that.configuration
+                    && serializationType == that.serializationType && omitClassHint == that.omitClassHint
+                    && version.equals( that.version ) && Arrays.equals( path, that.path );
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        private final String fragment;
+        private volatile long used = System.nanoTime();
+
+        Entry(String fragment) {
+            this.fragment = fragment;
+        }
+    }
+
+    private static final class Identity {
+        private final Object object;
+
+        Identity(Object object) {
+            this.object = object;
+        }
+
+        public boolean equals(Object o) {
+            return o instanceof Identity && ((Identity)o).object == object;
+        }
+
+        public int hashCode() {
+            return System.identityHashCode( object );
+        }
+    }
+
+    private static final class Pending {
+        private final CountDownLatch latch = new CountDownLatch( 1 );
+        private volatile String fragment;
+
+        void done(String fragment) {
+            this.fragment = fragment;
+            latch.countDown();
+        }
+
+        String await() {
+            try {
+                latch.await();
+            } catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            return fragment;
+        }
+    }
+}
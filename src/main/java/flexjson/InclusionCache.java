@@ -0,0 +1,71 @@
+package flexjson;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers which properties of a class are written at a given path, so the include and exclude
+ * expressions, annotations and type checks are evaluated once per class and path instead of once
+ * per property of every object.  Paths are kept in a tree with one node per path segment, and each
+ * node holds one flag per property of every class written there, in the order
+ * {@link BeanAnalyzer#getProperties()} lists them.  The decisions depend only on the path, so a
+ * serializer keeps one cache per {@link SerializationType} and clears it whenever its includes or
+ * excludes change.
+ *
+ * <p>
+ * Map keys become path segments too, so the tree stops growing at {@link #MAX_NODES} nodes and
+ * paths beyond that are evaluated without the cache.
+ * </p>
+ */
+final class InclusionCache {
+
+    static final int MAX_NODES = 4096;
+
+    private final Node root = new Node();
+    private final AtomicInteger nodes = new AtomicInteger();
+
+    /**
+     * @return the node for the path, or null if the path can't be cached.
+     */
+    Node find(Path path) {
+        Node current = root;
+        for( String segment : path.getPath() ) {
+            if( segment == null ) return null;
+            Node child = current.children.get( segment );
+            if( child == null ) {
+                if( nodes.incrementAndGet() > MAX_NODES ) {
+                    nodes.decrementAndGet();
+                    return null;
+                }
+                child = new Node();
+                Node existing = current.children.putIfAbsent( segment, child );
+                if( existing != null ) {
+                    nodes.decrementAndGet();
+                    child = existing;
+                }
+            }
+            current = child;
+        }
+        return current;
+    }
+
+    void clear() {
+        root.children.clear();
+        root.inclusions.clear();
+        nodes.set( 0 );
+    }
+
+    static final class Node {
+        private final ConcurrentMap<String,Node> children = new ConcurrentHashMap<String,Node>();
+        private final ConcurrentMap<Class,boolean[]> inclusions = new ConcurrentHashMap<Class,boolean[]>();
+
+        boolean[] get(Class clazz) {
+            return inclusions.get( clazz );
+        }
+
+        void put(Class clazz, boolean[] included) {
+            inclusions.put( clazz, included );
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package flexjson;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Creates instances of a class through its no-arg constructor.  The constructor is looked up and
+ * made accessible once per class, and classes that can't be instantiated are remembered along with
+ * the reason why so the lookup isn't repeated for every json object and the error says what's wrong.
+ * Instantiators are shared between threads and deserializers.
+ */
+public class Instantiator {
+
+    private static final ConcurrentMap<Class,Instantiator> cache = new ConcurrentHashMap<Class,Instantiator>();
+
+    private final Class clazz;
+    private final Constructor constructor;
+    private final String problem;
+    private final BeanAccessor accessor;
+
+    private Instantiator(Class clazz, Constructor constructor, String problem) {
+        this( clazz, constructor, problem, null );
+    }
+
+    private Instantiator(Class clazz, Constructor constructor, String problem, BeanAccessor accessor) {
+        this.clazz = clazz;
+        this.constructor = constructor;
+        this.problem = problem;
+        this.accessor = accessor;
+    }
+
+    /**
+     * @param clazz the class to instantiate.
+     * @return the cached Instantiator for the class.
+     */
+    public static Instantiator forClass( Class clazz ) {
+        Instantiator instantiator = cache.get( clazz );
+        if( instantiator == null ) {
+            instantiator = resolve( clazz );
+            Instantiator existing = cache.putIfAbsent( clazz, instantiator );
+            if( existing != null ) instantiator = existing;
+        }
+        return instantiator;
+    }
+
+    public static void clearCache() {
+        cache.clear();
+    }
+
+    static void clearCache( Class clazz ) {
+        cache.remove( clazz );
+    }
+
+    private static Instantiator resolve( Class clazz ) {
+        if( clazz.isInterface() ) {
+            return new Instantiator( clazz, null, clazz.getName() + " is an interface.  Use a ClassLocator, a class hint, or use() a concrete class for this path." );
+        }
+        if( clazz.isPrimitive() || clazz.isArray() ) {
+            String name = clazz.getCanonicalName() != null ? clazz.getCanonicalName() : clazz.getName();
+            return new Instantiator( clazz, null, name + " can't be instantiated as a bean.  Bind it with an ObjectFactory, or check the class given for this path." );
+        }
+        if( Modifier.isAbstract( clazz.getModifiers() ) ) {
+            return new Instantiator( clazz, null, clazz.getName() + " is abstract.  Use a ClassLocator, a class hint, or use() a concrete class for this path." );
+        }
+        BeanAccessor accessor = BeanAccessor.forClass( clazz );
+        if( accessor != null && accessor.isInstantiable() ) {
+            return new Instantiator( clazz, null, null, accessor );
+        }
+        try {
+            Constructor constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible( true );
+            return new Instantiator( clazz, constructor, null );
+        } catch( NoSuchMethodException e ) {
+            return new Instantiator( clazz, null, describeMissingConstructor( clazz ) );
+        } catch( SecurityException e ) {
+            return new Instantiator( clazz, null, "Access to the no-arg constructor of " + clazz.getName() + " was denied: " + e.getMessage() );
+        }
+    }
+
+    private static String describeMissingConstructor( Class clazz ) {
+        StringBuilder message = new StringBuilder( clazz.getName() );
+        if( clazz.getEnclosingClass() != null && !Modifier.isStatic( clazz.getModifiers() ) ) {
+            message.append( " is a non-static inner class so it can only be created with an instance of " );
+            message.append( clazz.getEnclosingClass().getName() ).append( ".  Declare it static." );
+            return message.toString();
+        }
+        message.append( " lacks a no argument constructor.  Flexjson will instantiate any protected, private, or public no-arg constructor." );
+        Constructor[] constructors = clazz.getDeclaredConstructors();
+        if( constructors.length > 0 ) {
+            message.append( "  Declared constructors are:" );
+            for( Constructor constructor : constructors ) {
+                message.append( " " ).append( clazz.getSimpleName() ).append( "(" );
+                Class[] parameters = constructor.getParameterTypes();
+                for( int i = 0; i < parameters.length; i++ ) {
+                    if( i > 0 ) message.append( ", " );
+                    message.append( parameters[i].getSimpleName() );
+                }
+                message.append( ")" );
+            }
+        }
+        return message.toString();
+    }
+
+    /**
+     * @return true if the class has a usable no-arg constructor.
+     */
+    public boolean isInstantiable() {
+        return constructor != null || accessor != null;
+    }
+
+    /**
+     * @return why the class can't be instantiated, or null if it can.
+     */
+    public String getProblem() {
+        return problem;
+    }
+
+    public Object newInstance() throws InstantiationException, IllegalAccessException, InvocationTargetException, NoSuchMethodException {
+        if( accessor != null ) {
+            return accessor.newInstance();
+        }
+        if( constructor == null ) {
+            if( clazz.isInterface() || Modifier.isAbstract( clazz.getModifiers() ) ) {
+                throw new InstantiationException( problem );
+            }
+            throw new NoSuchMethodException( problem );
+        }
+        return constructor.newInstance();
+    }
+}
@@ -0,0 +1,174 @@
+package flexjson;
+
+import java.util.TimeZone;
+
+/**
+ * <p>
+ * Reads and writes ISO-8601 timestamps by hand instead of going through java.text.DateFormat.  Parsing
+ * doesn't allocate anything and reports text that isn't ISO-8601 with a return value rather than an
+ * exception, so it's cheap to try before falling back to slower formats.
+ * </p>
+ *
+ * <p>
+ * The accepted forms are a calendar date (2011-04-15), optionally followed by 'T' or a space and a
+ * time of day with minutes, seconds and a fraction of a second (10:20, 10:20:30, 10:20:30.123456).  A
+ * time can end with Z or an offset (+02:00, -0500, +02).  Text without an offset is read in the default
+ * time zone just like a SimpleDateFormat would.  Fractions beyond milliseconds are truncated.  Dates
+ * use the proleptic Gregorian calendar.
+ * </p>
+ */
+public final class Iso8601 {
+
+    /**
+     * Returned by {@link #parse(CharSequence)} when the text isn't an ISO-8601 timestamp.
+     */
+    public static final long INVALID = Long.MIN_VALUE;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    private Iso8601() {
+    }
+
+    /**
+     * @param text the text to parse.
+     * @return the milliseconds since Jan 1, 1970 GMT the text represents, or {@link #INVALID} if the
+     * text isn't an ISO-8601 date or timestamp.
+     */
+    public static long parse(CharSequence text) {
+        int length = text.length();
+        if (length < 10 || text.charAt(4) != '-' || text.charAt(7) != '-') return INVALID;
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)) return INVALID;
+
+        long millis = daysFromCivil(year, month, day) * MILLIS_PER_DAY;
+        if (length == 10) return toUtc(millis);
+
+        char separator = text.charAt(10);
+        if ((separator != 'T' && separator != 't' && separator != ' ') || length < 16 || text.charAt(13) != ':') return INVALID;
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) return INVALID;
+        millis += (hour * 60L + minute) * 60000L;
+
+        int i = 16;
+        if (i < length && text.charAt(i) == ':') {
+            int second = digits(text, i + 1, 2);
+            if (second < 0 || second > 59) return INVALID;
+            millis += second * 1000L;
+            i += 3;
+            if (i < length && (text.charAt(i) == '.' || text.charAt(i) == ',')) {
+                int start = ++i;
+                int fraction = 0;
+                for (; i < length && isDigit(text.charAt(i)); i++) {
+                    if (i - start < 3) fraction = fraction * 10 + text.charAt(i) - '0';
+                }
+                if (i == start) return INVALID;
+                for (int scale = i - start; scale < 3; scale++) fraction *= 10;
+                millis += fraction;
+            }
+        }
+
+        if (i == length) return toUtc(millis);
+        char zone = text.charAt(i);
+        if (zone == 'Z' || zone == 'z') {
+            return i + 1 == length ? millis : INVALID;
+        }
+        if (zone != '+' && zone != '-') return INVALID;
+        int offsetHours = digits(text, i + 1, 2);
+        int offsetMinutes = 0;
+        i += 3;
+        if (i < length) {
+            if (text.charAt(i) == ':') i++;
+            offsetMinutes = digits(text, i, 2);
+            i += 2;
+        }
+        if (i != length || offsetHours < 0 || offsetHours > 23 || offsetMinutes < 0 || offsetMinutes > 59) return INVALID;
+        long offset = (offsetHours * 60L + offsetMinutes) * 60000L;
+        return zone == '+' ? millis - offset : millis + offset;
+    }
+
+    /**
+     * @param millis milliseconds since Jan 1, 1970 GMT.
+     * @return the instant in UTC with millisecond precision, for example 2011-04-15T10:20:30.123Z.
+     */
+    public static String format(long millis) {
+        long days = floorDiv(millis, MILLIS_PER_DAY);
+        int time = (int) (millis - days * MILLIS_PER_DAY);
+
+        // civil from days, see http://howardhinnant.github.io/date_algorithms.html
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        int doe = (int) (z - era * 146097);
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int day = doy - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+        StringBuilder builder = new StringBuilder(24);
+        if (year >= 0 && year <= 9999) {
+            pad(builder, (int) year, 4);
+        } else {
+            builder.append(year);
+        }
+        builder.append('-');
+        pad(builder, month, 2).append('-');
+        pad(builder, day, 2).append('T');
+        pad(builder, time / 3600000, 2).append(':');
+        pad(builder, time / 60000 % 60, 2).append(':');
+        pad(builder, time / 1000 % 60, 2).append('.');
+        pad(builder, time % 1000, 3).append('Z');
+        return builder.toString();
+    }
+
+    private static StringBuilder pad(StringBuilder builder, int value, int width) {
+        for (int divisor = width == 4 ? 1000 : width == 3 ? 100 : 10; divisor > 0; divisor /= 10) {
+            builder.append((char) ('0' + value / divisor % 10));
+        }
+        return builder;
+    }
+
+    private static long toUtc(long local) {
+        TimeZone zone = TimeZone.getDefault();
+        return local - zone.getOffset(local - zone.getOffset(local));
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        if (start + count > text.length()) return -1;
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) return -1;
+            value = value * 10 + c - '0';
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    private static long daysFromCivil(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yoe = y - era * 400;
+        long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+}
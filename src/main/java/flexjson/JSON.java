@@ -37,5 +37,10 @@ public @interface JSON {
     boolean include() default true;
     Class<? extends Transformer> transformer() default Transformer.class;
     Class<? extends ObjectFactory> objectFactory() default ObjectFactory.class;
+    /**
+     * Values the property is left out of the json for.  They replace the serializer's own settings
+     * for this property, and {@link Omit#NEVER} always writes it.  Empty uses the serializer's settings.
+     */
+    Omit[] omit() default {};
 
 }
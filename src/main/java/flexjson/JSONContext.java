@@ -46,6 +46,16 @@ public class JSONContext {
 
     private boolean commaWritePending;
 
+    private TypeRegistry typeRegistry;
+    private boolean omitRedundantClassHints;
+    private Object hintFree;
+    private ObjectWriterCache objectWriters;
+    private int omissions;
+    private InclusionCache inclusions;
+    private FragmentCache fragmentCache;
+    private long configuration;
+    private int rendering;
+
     public JSONContext() {}
 
     // CONFIGURE SERIALIZATION
@@ -91,8 +101,49 @@ public class JSONContext {
 
     }
 
+    /**
+     * used to pass in the writers cached by the JsonSerializer
+     *
+     * @param objectWriters the serializer's writers, or null if it doesn't use them
+     */
+    public void setObjectWriters(ObjectWriterCache objectWriters) {
+        this.objectWriters = objectWriters;
+    }
+
+    /**
+     * @param clazz the class of an object about to be written.
+     * @return a writer for the class, or null if the class is written without one.
+     */
+    public ObjectWriter getObjectWriter(Class clazz) {
+        return objectWriters != null ? objectWriters.getWriter(clazz, typeTransformerMap, pathTransformerMap) : null;
+    }
+
+    /**
+     * Retrieves the transformer for the value of a property.  A transformer registered for the
+     * current path wins over the property's own transformer, which wins over the value's type.
+     *
+     * @param object the property's value
+     * @param propertyTransformer the transformer the property was annotated with, or null
+     * @return
+     */
+    public Transformer getTransformer(Object object, Transformer propertyTransformer) {
+
+        Transformer transformer = getPathTransformer();
+
+        if (transformer == null) {
+            transformer = propertyTransformer;
+        }
+
+        if (transformer == null) {
+            transformer = getTypeTransformer(object);
+        }
+
+        return transformer;
+
+    }
+
     private Transformer getPathTransformer() {
-        return pathTransformerMap.get(path);
+        return pathTransformerMap.isEmpty() ? null : pathTransformerMap.get(path);
     }
 
     private Transformer getTypeTransformer(Object object) {
@@ -227,6 +278,19 @@ public class JSONContext {
         if (prettyPrint) out.write(" ");
     }
 
+    /**
+     * Write a property name that's already quoted and escaped.
+     *
+     * @param encoded the name as {@link #writeQuoted(String)} would write it.
+     */
+    public void writeEncodedName(String encoded) {
+        commitComma();
+        if (prettyPrint) writeIndent();
+        out.write(encoded);
+        out.write(":");
+        if (prettyPrint) out.write(" ");
+    }
+
     public void writeComma() {
     	commaWritePending = true;
     }
@@ -394,10 +458,141 @@ public class JSONContext {
         return this.path;
     }
 
+    public TypeRegistry getTypeRegistry() {
+        return typeRegistry;
+    }
+
+    public void setTypeRegistry(TypeRegistry typeRegistry) {
+        this.typeRegistry = typeRegistry;
+    }
+
+    public void setOmitRedundantClassHints(boolean omitRedundantClassHints) {
+        this.omitRedundantClassHints = omitRedundantClassHints;
+    }
+
+    /**
+     * Records the type a property value is declared as just before the value is transformed.  If
+     * the value's class is exactly the declared type the deserializer can work it out on its own,
+     * so the value's class hint can be left out when omitting redundant hints is turned on.
+     *
+     * @param value the value about to be transformed.
+     * @param declaredType the declared type of the property holding it, or null to forget the last value.
+     */
+    public void setDeclaredType(Object value, Class declaredType) {
+        hintFree = omitRedundantClassHints && value != null && value.getClass() == declaredType ? value : null;
+    }
+
+    /**
+     * Called when an object starts being transformed.
+     *
+     * @param object the object being transformed.
+     * @return true if its class hint can be left out.
+     */
+    public boolean isClassHintRedundant(Object object) {
+        boolean redundant = hintFree != null && hintFree == object;
+        hintFree = null;
+        return redundant;
+    }
+
     public void setPathExpressions(List<PathExpression> pathExpressions) {
         this.pathExpressions = pathExpressions;
     }
 
+    /**
+     * @param omissions the bits of the {@link Omit} values the serializer leaves out.
+     */
+    public void setOmissions(int omissions) {
+        this.omissions = omissions;
+    }
+
+    /**
+     * Decides whether a property is left out because of its value, before anything of it is written.
+     *
+     * @param prop the property.
+     * @param value the property's value.
+     * @return true if neither the property's name nor its value should be written.
+     */
+    public boolean isOmitted(BeanProperty prop, Object value) {
+        int mask = prop.getOmissions() >= 0 ? prop.getOmissions() : omissions;
+        return mask != 0 && Omit.isOmitted(mask, prop.getPropertyType(), value);
+    }
+
+    void setFragmentCache(FragmentCache fragmentCache, long configuration) {
+        this.fragmentCache = fragmentCache;
+        this.configuration = configuration;
+    }
+
+    /**
+     * @return true if objects may be written through a {@link FragmentCache}.
+     */
+    public boolean isCachingFragments() {
+        return fragmentCache != null && !prettyPrint;
+    }
+
+    /**
+     * Writes an object's json from the serializer's {@link FragmentCache}.  On a miss the json is
+     * captured while the given writer writes the object, and then it's cached.
+     *
+     * @param object the object about to be written.
+     * @param omitClassHint true if the object's class hint is left out.
+     * @param writer writes the object to this context.
+     * @return true if the object was written, false if its class isn't cached and it still has to be written.
+     */
+    public boolean writeCached(Object object, boolean omitClassHint, final Runnable writer) {
+        if (!isCachingFragments()) return false;
+        FragmentCache.Key key = fragmentCache.keyFor(object, configuration, serializationType, path, omitClassHint);
+        if (key == null) return false;
+
+        // the comma belongs to the enclosing object, not the fragment
+        commitComma();
+        String fragment = fragmentCache.get(key, rendering == 0, new FragmentCache.Renderer() {
+            public String render() {
+                OutputHandler target = out;
+                StringBuilder buffer = new StringBuilder();
+                out = new StringBuilderOutputHandler(buffer);
+                rendering++;
+                try {
+                    writer.run();
+                } finally {
+                    rendering--;
+                    out = target;
+                }
+                return buffer.toString();
+            }
+        });
+        out.write(fragment);
+        return true;
+    }
+
+    void setInclusions(InclusionCache inclusions) {
+        this.inclusions = inclusions;
+    }
+
+    /**
+     * Works out which properties of an object at the current path are written, the same as calling
+     * {@link #isIncluded(BeanProperty)} and {@link BeanProperty#isReadable()} for each of them with the
+     * property's name added to the path.  The answer is remembered for the class and path.
+     *
+     * @param clazz the object's class.
+     * @param properties the class's properties in the order {@link BeanAnalyzer#getProperties()} lists them.
+     * @return one flag per property, true where the property is written.
+     */
+    public boolean[] getInclusions(Class clazz, Collection<BeanProperty> properties) {
+        InclusionCache.Node node = inclusions != null ? inclusions.find(path) : null;
+        boolean[] included = node != null ? node.get(clazz) : null;
+        if (included == null || included.length != properties.size()) {
+            included = new boolean[properties.size()];
+            int i = 0;
+            for (BeanProperty prop : properties) {
+                path.enqueue(prop.getName());
+                included[i++] = isIncluded(prop) && prop.isReadable();
+                path.pop();
+            }
+            if (node != null) node.put(clazz, included);
+        }
+        return included;
+    }
+
     public boolean isIncluded(BeanProperty prop) {
         PathExpression expression = matches( pathExpressions );
         if (expression != null) {
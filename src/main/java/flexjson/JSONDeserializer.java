@@ -1,12 +1,14 @@
 package flexjson;
 
 import flexjson.factories.ClassLocatorObjectFactory;
-import flexjson.factories.ExistingObjectFactory;
 import flexjson.locators.StaticClassLocator;
 
+import java.io.File;
+import java.io.InputStream;
 import java.io.Reader;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.concurrent.ExecutorService;
 
 /**
  * <p>
@@ -143,10 +145,121 @@ public class JSONDeserializer<T> {
 
     private Map<Class,ObjectFactory> typeFactories = new HashMap<Class,ObjectFactory>();
     private Map<Path,ObjectFactory> pathFactories = new HashMap<Path,ObjectFactory>();
+    private boolean lazy;
+    private SymbolTable symbols;
+    private boolean strict;
+    private DuplicateKeyPolicy duplicateKeys = DuplicateKeyPolicy.ERROR;
+    private ObjectMapType objectMapType = ObjectMapType.HASH_MAP;
+    private TypeRegistry typeRegistry;
+    private ExecutorService executor;
+    private int segments;
+    private CompiledDeserializer<T> compiled;
 
     public JSONDeserializer() {
     }
 
+    /**
+     * Parse input into a {@link JSONIndex} instead of fully decoding it up front.  Strings, numbers and
+     * nested objects are only decoded when they are bound so json values that don't map onto the target
+     * object cost almost nothing.  Lazy parsing only accepts standard json.
+     *
+     * @param lazy true to index the input lazily, false to fully decode it before binding.
+     * @return this instance for method chaining.
+     */
+    public JSONDeserializer<T> lazy( boolean lazy ) {
+        this.lazy = lazy;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Share object keys across every document this deserializer reads.  Normally keys are only
+     * shared within a single document.  The table can be shared between several deserializers and
+     * threads, and since it's bounded hostile input can't grow it.
+     *
+     * @param symbols the table keys are canonicalized through.
+     * @return this instance for method chaining.
+     */
+    public JSONDeserializer<T> symbolTable( SymbolTable symbols ) {
+        this.symbols = symbols;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Only accept standard json as described by RFC 8259, and nothing but whitespace after it.  Strict
+     * parsing skips all the checks for the non-standard syntax the default grammar tolerates, like
+     * single quoted strings, unquoted words, '(' arrays and '=' or ';' separators, so it's faster.  Use
+     * it for new code; the lenient default stays for input that relies on the extensions.  Lazy
+     * parsing only accepts standard json either way.
+     *
+     * @param strict true to only accept standard json.
+     * @return this instance for method chaining.
+     */
+    public JSONDeserializer<T> strict( boolean strict ) {
+        this.strict = strict;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Choose what happens when a json object has the same key more than once.  By default it's an
+     * error.  Lazy parsing doesn't check keys and always finds the first value for a key.
+     *
+     * @param duplicateKeys the policy for repeated keys.
+     * @return this instance for method chaining.
+     */
+    public JSONDeserializer<T> duplicateKeys( DuplicateKeyPolicy duplicateKeys ) {
+        this.duplicateKeys = duplicateKeys;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Choose the Map implementation json objects are parsed into before they're bound.
+     * {@link ObjectMapType#COMPACT} takes a lot less memory than the default HashMap for objects with
+     * only a few keys.  Lazy parsing always uses its own {@link LazyJsonObject}.
+     *
+     * @param objectMapType the Map implementation for json objects.
+     * @return this instance for method chaining.
+     */
+    public JSONDeserializer<T> objectMapType( ObjectMapType objectMapType ) {
+        this.objectMapType = objectMapType;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Resolve the "class" hints in the json through the given registry.  Use the same registrations
+     * the input was serialized with.  A restricted registry refuses hints for unregistered classes.
+     *
+     * @param typeRegistry the registry class hints are resolved through.
+     * @return this instance for method chaining.
+     */
+    public JSONDeserializer<T> typeRegistry( TypeRegistry typeRegistry ) {
+        this.typeRegistry = typeRegistry;
+        compiled = null;
+        return this;
+    }
+
+    /**
+     * Parse large top-level json arrays on several threads.  The array is split between elements
+     * into up to the given number of segments which are parsed on the executor and joined back
+     * together in order before binding.  Input that isn't an array, or is too short to be worth
+     * splitting, is parsed the normal way.  Reader input is read into memory in full before it's
+     * split.  Lazy parsing turns this off.  The executor isn't shut down by the deserializer.
+     *
+     * @param executor the executor segments are parsed on, or null to parse on the calling thread.
+     * @param segments the most segments to split an array into, usually the number of threads.
+     * @return this instance for method chaining.
+     */
+    public JSONDeserializer<T> parallel( ExecutorService executor, int segments ) {
+        this.executor = executor;
+        this.segments = segments;
+        compiled = null;
+        return this;
+    }
+
     /**
      * Deserialize the given json formatted input into a Java object.
      *
@@ -154,8 +267,7 @@ public class JSONDeserializer<T> {
      * @return an Java instance deserialized from the json input.
      */
     public T deserialize( String input ) {
-        ObjectBinder binder = createObjectBinder();
-        return (T)binder.bind( new JSONTokener( input ).nextValue() );
+        return compiled().deserialize( input );
     }
 
     /**
@@ -166,8 +278,30 @@ public class JSONDeserializer<T> {
      * @return an Java instance deserialized from the java.io.Reader's input.
      */
     public T deserialize( Reader input ) {
-        ObjectBinder binder = createObjectBinder();
-        return (T)binder.bind( new JSONTokener( input ).nextValue() );
+        return compiled().deserialize( input );
+    }
+
+    /**
+     * Deserialize the UTF-8 encoded json in the given file.  The file is memory mapped, a window at a
+     * time for very large files, and decoded straight from the mapped bytes instead of being copied
+     * through a FileReader.  Works with {@link #lazy(boolean)} and {@link #parallel(java.util.concurrent.ExecutorService, int)}.
+     *
+     * @param input the file the json is read from.
+     * @return an Java instance deserialized from the file.
+     */
+    public T deserialize( File input ) {
+        return compiled().deserialize( input );
+    }
+
+    /**
+     * Same as {@link #deserialize(java.io.File)}, but uses the given Class as the type of the initial object.
+     *
+     * @param input the file the json is read from.
+     * @param root a Class used to create the initial object.
+     * @return an Java instance deserialized from the file.
+     */
+    public T deserialize( File input, Class root ) {
+        return compiled().deserialize( input, root );
     }
 
     /**
@@ -180,8 +314,7 @@ public class JSONDeserializer<T> {
      * @return the object created from the given json input.
      */
     public T deserialize( String input, Class root ) {
-        ObjectBinder binder = createObjectBinder();
-        return (T)binder.bind( new JSONTokener( input ).nextValue(), root );
+        return compiled().deserialize( input, root );
     }
 
     /**
@@ -193,13 +326,22 @@ public class JSONDeserializer<T> {
      * @return an Java instance deserialized from the java.io.Reader's input.
      */
     public T deserialize( Reader input, Class root ) {
-        ObjectBinder binder = createObjectBinder();
-        return (T)binder.bind( new JSONTokener( input ).nextValue(), root );
+        return compiled().deserialize( input, root );
     }
 
     /**
      * Same as {@link #deserialize(String, Class)} but it starts binding into
-     * the instance of the given Class at the given path.
+     * the instance of the given Class at the given path.  The path can be in
+     * dot notation (data.items.0) or a JSON Pointer (/data/items/0).  Segments
+     * select object keys or array indexes.  Everything outside of the path is
+     * skipped over without being decoded.
+     * <p>
+     * Earlier versions took the path as the name of a single top-level key.  A
+     * key that contains dots, or starts with a slash, is now read as nested keys
+     * or a JSON Pointer instead.  To select such a key literally write it as a
+     * pointer, escaping / as ~1 and ~ as ~0, so "a.b" becomes "/a.b" and "/a"
+     * becomes "/~1a".
+     * </p>
      *
      * @param input a json format string.
      * @param path a path to an instance of the given class.
@@ -207,14 +349,13 @@ public class JSONDeserializer<T> {
      * @return the object created from the given json input.
      */
     public T deserialize(String input, String path, Class root ) {
-        ObjectBinder binder = createObjectBinder();
-        Map value = (Map)new JSONTokener( input ).nextValue();
-        return (T)binder.bind( value.get(path), root );
+        return compiled().deserialize( input, path, root );
     }
 
     /**
      * Same as {@link #deserialize(java.io.Reader, Class)} but it starts binding into
-     * the instance of the given Class at the given path.
+     * the instance of the given Class at the given path.  See
+     * {@link #deserialize(String, String, Class)} for how the path is written.
      *
      * @param input the stream where the json input is coming from.
      * @param path a path to an instance of the given class.
@@ -222,9 +363,7 @@ public class JSONDeserializer<T> {
      * @return an Java instance deserialized from the java.io.Reader's input.
      */
     public T deserialize(Reader input, String path, Class root ) {
-        ObjectBinder binder = createObjectBinder();
-        Map value = (Map)new JSONTokener( input ).nextValue();
-        return (T)binder.bind( value.get(path), root );
+        return compiled().deserialize( input, path, root );
     }
 
     /**
@@ -236,9 +375,7 @@ public class JSONDeserializer<T> {
      * @return the object created from the given json input.
      */
     public T deserialize( String input, ObjectFactory factory ) {
-        use( (String)null, factory );
-        ObjectBinder binder = createObjectBinder();
-        return (T)binder.bind( new JSONTokener( input ).nextValue() );
+        return compiled().deserialize( input, factory );
     }
 
     /**
@@ -250,14 +387,13 @@ public class JSONDeserializer<T> {
      * @return an Java instance deserialized from the java.io.Reader's input.
      */
     public T deserialize( Reader input, ObjectFactory factory ) {
-        use( (String)null, factory );
-        ObjectBinder binder = createObjectBinder();
-        return (T)binder.bind( new JSONTokener( input ).nextValue() );
+        return compiled().deserialize( input, factory );
     }
 
     /**
      * Same as {@link #deserialize(String, ObjectFactory)}, it starts binding into
-     * the instance of the given Class at the given path.
+     * the instance of the given Class at the given path.  See
+     * {@link #deserialize(String, String, Class)} for how the path is written.
      *
      * @param input a json formatted string.
      * @param path the path two which you start binding.
@@ -265,15 +401,13 @@ public class JSONDeserializer<T> {
      * @return an Java instance deserialized from the given json input.
      */
     public T deserialize( String input, String path, ObjectFactory factory ) {
-        use((String)null, factory);
-        ObjectBinder binder = createObjectBinder();
-        Map value = (Map)new JSONTokener(input).nextValue();
-        return (T)binder.bind( value.get(path) );
+        return compiled().deserialize( input, path, factory );
     }
 
     /**
      * Same as {@link #deserialize(String, ObjectFactory)}, it starts binding into
-     * the instance of the given Class at the given path.
+     * the instance of the given Class at the given path.  See
+     * {@link #deserialize(String, String, Class)} for how the path is written.
      *
      * @param input the stream where the json input is coming from.
      * @param path the path two which you start binding.
@@ -281,10 +415,33 @@ public class JSONDeserializer<T> {
      * @return an Java instance deserialized from the java.io.Reader's input.
      */
     public T deserialize(Reader input, String path, ObjectFactory factory ) {
-        use( (String)null, factory );
-        ObjectBinder binder = createObjectBinder();
-        Object value = new JSONTokener(input).nextValue();
-        return (T)binder.bind( ((Map)value).get(path) );
+        return compiled().deserialize( input, path, factory );
+    }
+
+    /**
+     * Deserialize the values found at several paths out of the given json input in a single pass.
+     * Paths are given in dot notation or as JSON Pointers just like {@link #deserialize(String, String, Class)}.
+     * Only the values at the given paths are decoded, and reading stops once all of them have been found.
+     *
+     * @param input a json formatted string.
+     * @param paths the paths to the values you want to deserialize.
+     * @return a Map from each path to the object deserialized from it.  Paths that aren't present in the input
+     * are left out of the Map.
+     */
+    public Map<String,Object> extract( String input, String... paths ) {
+        return compiled().extract( input, paths );
+    }
+
+    /**
+     * Same as {@link #extract(String, String...)}, but uses an instance of
+     * java.io.Reader as json input.
+     *
+     * @param input the stream where the json input is coming from.
+     * @param paths the paths to the values you want to deserialize.
+     * @return a Map from each path to the object deserialized from it.
+     */
+    public Map<String,Object> extract( Reader input, String... paths ) {
+        return compiled().extract( input, paths );
     }
 
     /**
@@ -298,7 +455,7 @@ public class JSONDeserializer<T> {
      * @return will return a reference to target.
      */
     public T deserializeInto( String input, T target ) {
-        return deserialize( input, new ExistingObjectFactory(target) );
+        return compiled().deserializeInto( input, target );
     }
 
     /**
@@ -310,7 +467,7 @@ public class JSONDeserializer<T> {
      * @return will return a reference to target.
      */
     public T deserializeInto( Reader input, T target ) {
-        return deserialize( input, new ExistingObjectFactory(target) );
+        return compiled().deserializeInto( input, target );
     }
 
     /**
@@ -325,7 +482,7 @@ public class JSONDeserializer<T> {
      * @return will return a reference to target.
      */
     public T deserializeInto( String input, String path, T target ) {
-        return deserialize( input, path, new ExistingObjectFactory(target) );
+        return compiled().deserializeInto( input, path, target );
     }
 
     /**
@@ -338,12 +495,111 @@ public class JSONDeserializer<T> {
      * @return will return a reference to target.
      */
     public T deserializeInto( Reader input, String path, T target ) {
-        return deserialize( input, path, new ExistingObjectFactory(target) );
+        return compiled().deserializeInto( input, path, target );
+    }
+
+    /**
+     * Read the elements of a top-level json array one at a time instead of building the whole
+     * array first.  Only the element being bound is held in memory so this works for arrays of any
+     * length.  Close the iterator to stop reading early.
+     *
+     * @param input the stream where the json array is coming from.
+     * @param root the Class each element is bound into.
+     * @return an iterator over the bound elements of the array.
+     */
+    public JSONIterator<T> iterate( Reader input, Class root ) {
+        return compiled().iterate( input, root );
+    }
+
+    /**
+     * Same as {@link #iterate(java.io.Reader, Class)}, but reads UTF-8 encoded json from an InputStream.
+     *
+     * @param input the stream where the json array is coming from.
+     * @param root the Class each element is bound into.
+     * @return an iterator over the bound elements of the array.
+     */
+    public JSONIterator<T> iterate( InputStream input, Class root ) {
+        return compiled().iterate( input, root );
+    }
+
+    /**
+     * Same as {@link #iterate(java.io.Reader, Class)}, but memory maps the given UTF-8 encoded file.
+     *
+     * @param input the file the json array is read from.
+     * @param root the Class each element is bound into.
+     * @return an iterator over the bound elements of the array.
+     */
+    public JSONIterator<T> iterate( File input, Class root ) {
+        return compiled().iterate( input, root );
+    }
+
+    /**
+     * Read a series of json documents one at a time.  The documents can be newline delimited
+     * (JSON Lines) or simply written one after another.  Like {@link #iterate(java.io.Reader, Class)} only
+     * the document being bound is held in memory.
+     *
+     * @param input the stream where the json documents are coming from.
+     * @param root the Class each document is bound into.
+     * @return an iterator over the bound documents.
+     */
+    public JSONIterator<T> iterateDocuments( Reader input, Class root ) {
+        return compiled().iterateDocuments( input, root );
+    }
+
+    /**
+     * Same as {@link #iterateDocuments(java.io.Reader, Class)}, but reads UTF-8 encoded json from an InputStream.
+     *
+     * @param input the stream where the json documents are coming from.
+     * @param root the Class each document is bound into.
+     * @return an iterator over the bound documents.
+     */
+    public JSONIterator<T> iterateDocuments( InputStream input, Class root ) {
+        return compiled().iterateDocuments( input, root );
+    }
+
+    /**
+     * Same as {@link #iterateDocuments(java.io.Reader, Class)}, but memory maps the given UTF-8 encoded file.
+     *
+     * @param input the file the json documents are read from.
+     * @param root the Class each document is bound into.
+     * @return an iterator over the bound documents.
+     */
+    public JSONIterator<T> iterateDocuments( File input, Class root ) {
+        return compiled().iterateDocuments( input, root );
+    }
+
+    /**
+     * Same as {@link #iterateDocuments(java.io.Reader, Class)}, but documents are parsed and bound in
+     * parallel on the given executor.  The iterating thread only splits the input into documents and
+     * reads up to window documents ahead, and documents are returned in the order they were read.
+     * The executor isn't shut down when the iterator is closed.
+     *
+     * @param input the stream where the json documents are coming from.
+     * @param root the Class each document is bound into.
+     * @param executor the executor documents are parsed and bound on.
+     * @param window the number of documents read ahead and in flight at once.
+     * @return an iterator over the bound documents.
+     */
+    public JSONIterator<T> iterateDocuments( Reader input, Class root, ExecutorService executor, int window ) {
+        return compiled().iterateDocuments( input, root, executor, window );
+    }
+
+    /**
+     * Same as {@link #iterateDocuments(java.io.Reader, Class, java.util.concurrent.ExecutorService, int)}, but reads
+     * UTF-8 encoded json from an InputStream.
+     *
+     * @param input the stream where the json documents are coming from.
+     * @param root the Class each document is bound into.
+     * @param executor the executor documents are parsed and bound on.
+     * @param window the number of documents read ahead and in flight at once.
+     * @return an iterator over the bound documents.
+     */
+    public JSONIterator<T> iterateDocuments( InputStream input, Class root, ExecutorService executor, int window ) {
+        return compiled().iterateDocuments( input, root, executor, window );
     }
 
     public JSONDeserializer<T> use( String path, ClassLocator locator ) {
-        pathFactories.put( Path.parse(path), new ClassLocatorObjectFactory( locator ) );
-        return this;
+        return use( path, new ClassLocatorObjectFactory( locator ) );
     }
 
     public JSONDeserializer<T> use( String path, Class clazz ) {
@@ -351,6 +607,7 @@ public class JSONDeserializer<T> {
     }
 
     public JSONDeserializer<T> use( Class clazz, ObjectFactory factory ) {
+        compiled = null;
         typeFactories.put( clazz, factory );
         if( clazz == Boolean.class ) typeFactories.put(Boolean.TYPE, factory );
         else if( clazz == Integer.class ) typeFactories.put(Integer.TYPE, factory );
@@ -364,6 +621,7 @@ public class JSONDeserializer<T> {
     }
 
     public JSONDeserializer<T> use( String path, ObjectFactory factory ) {
+        compiled = null;
         pathFactories.put( Path.parse( path ), factory );
         return this;
     }
@@ -375,15 +633,35 @@ public class JSONDeserializer<T> {
         return this;
     }
 
-    private ObjectBinder createObjectBinder() {
-        ObjectBinder binder = new ObjectBinder();
-        for( Class clazz : typeFactories.keySet() ) {
-            binder.use( clazz, typeFactories.get(clazz) );
-        }
-        for( Path p : pathFactories.keySet() ) {
-            binder.use( p, pathFactories.get( p ) );
+    /**
+     * Takes an immutable snapshot of this deserializer's configuration.  Factories are prepared once
+     * so each call only allocates the parser and the objects it returns, and the result can be
+     * kept in a static field and shared between threads.  Later changes to this deserializer don't
+     * affect it.
+     *
+     * @return a CompiledDeserializer that binds the root the same way {@link #deserialize(String)} does.
+     */
+    public CompiledDeserializer<T> compile() {
+        return compile( null );
+    }
+
+    /**
+     * Same as {@link #compile()}, but the root object is created from the given Class the
+     * way {@link #deserialize(String, Class)} does it.
+     *
+     * @param root the Class used to create the initial object.
+     * @return a CompiledDeserializer for the root class.
+     */
+    public CompiledDeserializer<T> compile( Class root ) {
+        ParallelArrayParser parallel = executor != null ? new ParallelArrayParser( executor, segments ) : null;
+        return new CompiledDeserializer<T>( typeFactories, pathFactories, typeRegistry, symbols, strict, duplicateKeys, objectMapType, lazy, parallel, root );
+    }
+
+    private CompiledDeserializer<T> compiled() {
+        if( compiled == null ) {
+            compiled = compile();
         }
-        return binder;
+        return compiled;
     }
 
 }
@@ -0,0 +1,462 @@
+package flexjson;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * <p>
+ * JSONIndex makes a single pass over a json document and records where every value starts and ends along with its
+ * type.  The index is kept in a handful of primitive arrays (a structural tape) so building it allocates almost
+ * nothing beyond the arrays themselves.  Nothing is decoded while indexing.  Strings, numbers, and nested
+ * objects are only turned into Java objects when they are accessed through the {@link java.util.Map} and
+ * {@link java.util.List} views returned by {@link #getRoot()}.
+ * </p>
+ * <p>
+ * This is useful when you only need a few fields out of a large document:
+ * </p>
+ * <pre>
+ *   Map&lt;String,Object&gt; doc = (Map&lt;String,Object&gt;)JSONIndex.parse( json ).getRoot();
+ *   Object type = doc.get("type");
+ * </pre>
+ * <p>
+ * The views can be handed to {@link ObjectBinder#bind(Object, java.lang.reflect.Type)} just like the output of
+ * {@link JSONTokener}, and only the values that are actually bound will be decoded.  The views are read only.
+ * The index only accepts standard json (RFC 8259).  If an object contains the same key twice the first
+ * occurrence is returned by get().
+ * </p>
+ */
+public class JSONIndex {
+
+    static final byte OBJECT = 1;
+    static final byte ARRAY = 2;
+    static final byte STRING = 3;
+    static final byte ESCAPED_STRING = 4;
+    static final byte NUMBER = 5;
+    static final byte TRUE = 6;
+    static final byte FALSE = 7;
+    static final byte NULL = 8;
+
+    private final char[] buffer;
+    private final int limit;
+    private int position;
+
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    // for containers the number of children and the tape index following the container's last descendant
+    private int[] counts;
+    private int[] nexts;
+    private int size;
+    private SymbolTable symbols;
+
+    private JSONIndex(char[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+        int capacity = Math.max( 16, length / 8 );
+        types = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+        counts = new int[capacity];
+        nexts = new int[capacity];
+    }
+
+    /**
+     * Index the given json document.
+     *
+     * @param input a json formatted string.
+     * @return the index of the document.
+     */
+    public static JSONIndex parse( String input ) {
+        char[] chars = input.toCharArray();
+        return parse( chars, 0, chars.length );
+    }
+
+    /**
+     * Index a json document held in the given region of a char array.  The array is not copied so it
+     * must not be modified while the index or any of its views are in use.
+     *
+     * @param input the characters holding the json document.
+     * @param offset the position of the first character of the document.
+     * @param length the number of characters in the document.
+     * @return the index of the document.
+     */
+    public static JSONIndex parse( char[] input, int offset, int length ) {
+        JSONIndex index = new JSONIndex( input, offset, length );
+        index.index();
+        return index;
+    }
+
+    /**
+     * Read the given java.io.Reader to the end and index its contents.
+     *
+     * @param input the stream where the json input is coming from.
+     * @return the index of the document.
+     */
+    public static JSONIndex parse( Reader input ) {
+        try {
+            char[] chars = new char[8192];
+            int length = 0;
+            int read;
+            while( (read = input.read( chars, length, chars.length - length )) != -1 ) {
+                length += read;
+                if( length == chars.length ) {
+                    char[] grown = new char[ chars.length * 2 ];
+                    System.arraycopy( chars, 0, grown, 0, length );
+                    chars = grown;
+                }
+            }
+            return parse( chars, 0, length );
+        } catch( IOException e ) {
+            throw new JSONException( e );
+        }
+    }
+
+    /**
+     * Returns the root value of the document.  Objects are returned as a {@link LazyJsonObject}, arrays
+     * as a {@link LazyJsonArray}, and everything else is decoded the same way {@link JSONTokener} would.
+     *
+     * @return the root value of the document.
+     */
+    public Object getRoot() {
+        return valueAt( 0 );
+    }
+
+    /**
+     * @return the number of values recorded in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    private void index() {
+        skipWhitespace();
+        indexValue();
+        skipWhitespace();
+        if( position < limit ) {
+            throw syntaxError("Unexpected text after the end of the document");
+        }
+    }
+
+    private void indexValue() {
+        if( position >= limit ) {
+            throw syntaxError("Missing value");
+        }
+        char c = buffer[position];
+        switch( c ) {
+            case '{':
+                indexObject();
+                break;
+            case '[':
+                indexArray();
+                break;
+            case '"':
+                indexString();
+                break;
+            case 't':
+                indexLiteral( "true", TRUE );
+                break;
+            case 'f':
+                indexLiteral( "false", FALSE );
+                break;
+            case 'n':
+                indexLiteral( "null", NULL );
+                break;
+            default:
+                if( c == '-' || (c >= '0' && c <= '9') ) {
+                    indexNumber();
+                } else {
+                    throw syntaxError("Unexpected character '" + c + "'");
+                }
+        }
+    }
+
+    private void indexObject() {
+        int node = add( OBJECT, position, position );
+        position++;
+        int count = 0;
+        skipWhitespace();
+        if( position < limit && buffer[position] == '}' ) {
+            position++;
+        } else {
+            for(;;) {
+                skipWhitespace();
+                if( position >= limit || buffer[position] != '"' ) {
+                    throw syntaxError("Expected a string key");
+                }
+                indexString();
+                skipWhitespace();
+                if( position >= limit || buffer[position] != ':' ) {
+                    throw syntaxError("Expected a ':' after a key");
+                }
+                position++;
+                skipWhitespace();
+                indexValue();
+                count++;
+                skipWhitespace();
+                char c = position < limit ? buffer[position++] : 0;
+                if( c == '}' ) break;
+                if( c != ',' ) throw syntaxError("Expected a ',' or '}'");
+            }
+        }
+        ends[node] = position;
+        counts[node] = count;
+        nexts[node] = size;
+    }
+
+    private void indexArray() {
+        int node = add( ARRAY, position, position );
+        position++;
+        int count = 0;
+        skipWhitespace();
+        if( position < limit && buffer[position] == ']' ) {
+            position++;
+        } else {
+            for(;;) {
+                skipWhitespace();
+                indexValue();
+                count++;
+                skipWhitespace();
+                char c = position < limit ? buffer[position++] : 0;
+                if( c == ']' ) break;
+                if( c != ',' ) throw syntaxError("Expected a ',' or ']'");
+            }
+        }
+        ends[node] = position;
+        counts[node] = count;
+        nexts[node] = size;
+    }
+
+    private void indexString() {
+        int start = ++position;
+        byte type = STRING;
+        while( position < limit ) {
+            char c = buffer[position];
+            if( c == '"' ) {
+                add( type, start, position );
+                position++;
+                return;
+            } else if( c == '\\' ) {
+                type = ESCAPED_STRING;
+                position++;
+                if( position < limit && buffer[position] == 'u' ) {
+                    for( int i = 1; i <= 4; i++ ) {
+                        if( position + i >= limit || JSONTokener.dehexchar( buffer[position + i] ) < 0 ) {
+                            throw syntaxError("Illegal unicode escape");
+                        }
+                    }
+                    position += 4;
+                }
+            } else if( c < ' ' ) {
+                throw syntaxError("Unescaped control character in string");
+            }
+            position++;
+        }
+        throw syntaxError("Unterminated string");
+    }
+
+    private void indexNumber() {
+        int start = position;
+        if( buffer[position] == '-' ) position++;
+        int digits = skipDigits();
+        if( digits == 0 ) throw syntaxError("Malformed number");
+        if( digits > 1 && buffer[ position - digits ] == '0' ) throw syntaxError("Leading zeros are not allowed");
+        if( position < limit && buffer[position] == '.' ) {
+            position++;
+            if( skipDigits() == 0 ) throw syntaxError("Malformed number");
+        }
+        if( position < limit && (buffer[position] == 'e' || buffer[position] == 'E') ) {
+            position++;
+            if( position < limit && (buffer[position] == '+' || buffer[position] == '-') ) position++;
+            if( skipDigits() == 0 ) throw syntaxError("Malformed number");
+        }
+        add( NUMBER, start, position );
+    }
+
+    private int skipDigits() {
+        int start = position;
+        while( position < limit && buffer[position] >= '0' && buffer[position] <= '9' ) {
+            position++;
+        }
+        return position - start;
+    }
+
+    private void indexLiteral( String literal, byte type ) {
+        int length = literal.length();
+        if( position + length > limit ) throw syntaxError("Unexpected end of input");
+        for( int i = 0; i < length; i++ ) {
+            if( buffer[position + i] != literal.charAt(i) ) {
+                throw syntaxError("Expected '" + literal + "'");
+            }
+        }
+        add( type, position, position + length );
+        position += length;
+    }
+
+    private void skipWhitespace() {
+        while( position < limit ) {
+            char c = buffer[position];
+            if( c != ' ' && c != '\n' && c != '\r' && c != '\t' ) return;
+            position++;
+        }
+    }
+
+    private int add( byte type, int start, int end ) {
+        if( size == types.length ) {
+            int capacity = size * 2;
+            byte[] newTypes = new byte[capacity];
+            System.arraycopy( types, 0, newTypes, 0, size );
+            types = newTypes;
+            starts = grow( starts, capacity );
+            ends = grow( ends, capacity );
+            counts = grow( counts, capacity );
+            nexts = grow( nexts, capacity );
+        }
+        types[size] = type;
+        starts[size] = start;
+        ends[size] = end;
+        return size++;
+    }
+
+    private int[] grow( int[] array, int capacity ) {
+        int[] grown = new int[capacity];
+        System.arraycopy( array, 0, grown, 0, size );
+        return grown;
+    }
+
+    private JSONException syntaxError( String message ) {
+        return new JSONException( message + " at character " + position );
+    }
+
+    // ACCESS FOR THE VIEWS
+
+    byte typeAt( int node ) {
+        return types[node];
+    }
+
+    int countAt( int node ) {
+        return counts[node];
+    }
+
+    /**
+     * @return the tape index of the value following the given node and all of its descendants.
+     */
+    int skip( int node ) {
+        byte type = types[node];
+        return type == OBJECT || type == ARRAY ? nexts[node] : node + 1;
+    }
+
+    Object valueAt( int node ) {
+        switch( types[node] ) {
+            case OBJECT:
+                return new LazyJsonObject( this, node );
+            case ARRAY:
+                return new LazyJsonArray( this, node );
+            case STRING:
+            case ESCAPED_STRING:
+                return stringAt( node );
+            case NUMBER:
+                return JsonNumber.parse( buffer, starts[node], ends[node] - starts[node] );
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return the value of a NUMBER node holding an integer of at most 18 digits, or Long.MIN_VALUE.
+     */
+    long longAt( int node ) {
+        return JsonNumber.parseLong( buffer, starts[node], ends[node] - starts[node] );
+    }
+
+    /**
+     * @return the value of a NUMBER node with at most 18 significant digits, or NaN.
+     */
+    double doubleAt( int node ) {
+        return JsonNumber.parseDouble( buffer, starts[node], ends[node] - starts[node] );
+    }
+
+    /**
+     * Shares keys through the given table instead of one private to this index.
+     */
+    JSONIndex withSymbols( SymbolTable symbols ) {
+        if( symbols != null ) {
+            this.symbols = symbols;
+        }
+        return this;
+    }
+
+    String keyAt( int node ) {
+        if( types[node] != STRING ) {
+            return stringAt( node );
+        }
+        if( symbols == null ) {
+            symbols = new SymbolTable( 256, SymbolTable.DEFAULT_MAX_LENGTH );
+        }
+        return symbols.lookup( buffer, starts[node], ends[node] - starts[node] );
+    }
+
+    String stringAt( int node ) {
+        int start = starts[node];
+        int end = ends[node];
+        if( types[node] == STRING ) {
+            return new String( buffer, start, end - start );
+        }
+        StringBuilder builder = new StringBuilder( end - start );
+        for( int i = start; i < end; i++ ) {
+            char c = buffer[i];
+            if( c != '\\' ) {
+                builder.append( c );
+                continue;
+            }
+            c = buffer[++i];
+            switch( c ) {
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'u':
+                    builder.append( (char)((JSONTokener.dehexchar( buffer[i + 1] ) << 12) |
+                            (JSONTokener.dehexchar( buffer[i + 2] ) << 8) |
+                            (JSONTokener.dehexchar( buffer[i + 3] ) << 4) |
+                            JSONTokener.dehexchar( buffer[i + 4] )) );
+                    i += 4;
+                    break;
+                default:
+                    builder.append( c );
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Compares the string at the given node against the given key without decoding it when possible.
+     */
+    boolean stringEquals( int node, String key ) {
+        if( types[node] == ESCAPED_STRING ) {
+            return stringAt( node ).equals( key );
+        }
+        int start = starts[node];
+        int length = ends[node] - start;
+        if( length != key.length() ) return false;
+        for( int i = 0; i < length; i++ ) {
+            if( buffer[start + i] != key.charAt(i) ) return false;
+        }
+        return true;
+    }
+}
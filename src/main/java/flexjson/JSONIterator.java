@@ -0,0 +1,239 @@
+package flexjson;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * <p>
+ * Reads the elements of a top-level json array, or a series of json documents, one at a time.  Each
+ * element is parsed and bound only when it's asked for, so no more than a single element is held in
+ * memory no matter how long the input is.  Get one from {@link JSONDeserializer#iterate(java.io.Reader, Class)}
+ * for an array, or from {@link JSONDeserializer#iterateDocuments(java.io.Reader, Class)} for newline
+ * delimited json (JSON Lines) or documents written back to back.
+ * </p>
+ *
+ * <pre>
+ * JSONIterator&lt;Person&gt; people = new JSONDeserializer&lt;Person&gt;().iterate( reader, Person.class );
+ * try {
+ *     while( people.hasNext() ) {
+ *         save( people.next() );
+ *     }
+ * } finally {
+ *     people.close();
+ * }
+ * </pre>
+ *
+ * <p>
+ * Elements are bound as if each one was the root of its own document so paths given to use() are
+ * relative to an element.  The reader is closed once the end of the input is reached or when
+ * {@link #close()} is called to stop early.
+ * </p>
+ *
+ * <p>
+ * Documents can also be parsed and bound in parallel by handing
+ * {@link JSONDeserializer#iterateDocuments(java.io.Reader, Class, java.util.concurrent.ExecutorService, int)}
+ * an ExecutorService.  The iterating thread splits the input into documents without decoding them and
+ * submits each one to the executor.  No more than the given number of documents are in flight at a
+ * time, and they come back in the order they were read.
+ * </p>
+ */
+public class JSONIterator<T> implements Iterator<T>, Closeable {
+
+    private final Reader reader;
+    private final JSONTokener tokener;
+    private final CompiledDeserializer<T> deserializer;
+    private final Type root;
+    private final boolean array;
+    private final ExecutorService executor;
+    private final int window;
+    private final LinkedList<Future<T>> pending = new LinkedList<Future<T>>();
+    private char close;
+    private boolean started;
+    private boolean ready;
+    private boolean done;
+    private boolean exhausted;
+    private RuntimeException failure;
+    private Object element;
+
+    /**
+     * @param array true to read the elements of an array, false to read a series of documents.
+     * @param executor binds documents in parallel when not null.
+     * @param window the number of documents that can be in flight at once.
+     */
+    JSONIterator(Reader reader, CompiledDeserializer<T> deserializer, Type root, boolean array, ExecutorService executor, int window) {
+        if( executor != null && window < 1 ) {
+            throw new IllegalArgumentException( "window must be at least 1 but was " + window );
+        }
+        this.reader = reader;
+        this.tokener = deserializer.tokener( reader );
+        this.deserializer = deserializer;
+        this.root = root;
+        this.array = array;
+        this.executor = executor;
+        this.window = window;
+    }
+
+    public boolean hasNext() {
+        if( executor != null ) {
+            return fill();
+        }
+        if( !ready && !done ) {
+            try {
+                ready = advance();
+            } catch( RuntimeException e ) {
+                close();
+                throw e;
+            }
+            if( !ready ) close();
+        }
+        return ready;
+    }
+
+    public T next() {
+        if( !hasNext() ) throw new NoSuchElementException();
+        if( executor != null ) {
+            return take();
+        }
+        ready = false;
+        Object value = element;
+        element = null;
+        return deserializer.bind( value, root, null );
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException( "Elements can't be removed from json input" );
+    }
+
+    /**
+     * Stops reading and closes the underlying reader.  Calling it more than once has no effect.
+     */
+    public void close() {
+        if( !done ) {
+            done = true;
+            ready = false;
+            element = null;
+            for( Future<T> future : pending ) {
+                future.cancel( true );
+            }
+            pending.clear();
+            try {
+                reader.close();
+            } catch( IOException e ) {
+                throw new JSONException( "Failed to close the json input", e );
+            }
+        }
+    }
+
+    private boolean advance() {
+        if( !array ) {
+            if( tokener.nextClean() == 0 ) return false;
+            tokener.back();
+            element = tokener.nextValue();
+            return true;
+        }
+        char c;
+        if( !started ) {
+            started = true;
+            c = tokener.nextClean();
+            if( c == '[' ) {
+                close = ']';
+            } else if( c == '(' && !tokener.isStrict() ) {
+                close = ')';
+            } else {
+                throw tokener.syntaxError( "A JSONArray text must start with '['" );
+            }
+            c = tokener.nextClean();
+            if( c == ']' || c == ')' ) return end( c );
+        } else {
+            c = tokener.nextClean();
+            if( c == ';' && tokener.isStrict() ) {
+                throw tokener.syntaxError( "Expected a ',' or ']'" );
+            }
+            switch( c ) {
+                case ';':
+                case ',':
+                    c = tokener.nextClean();
+                    if( !tokener.isStrict() && (c == ']' || c == ')') ) return end( c );
+                    break;
+                case ']':
+                case ')':
+                    return end( c );
+                default:
+                    throw tokener.syntaxError( "Expected a ',' or ']'" );
+            }
+        }
+        tokener.back();
+        if( c == ',' && !tokener.isStrict() ) {
+            element = null;
+        } else {
+            element = tokener.nextValue();
+        }
+        return true;
+    }
+
+    private boolean fill() {
+        while( !done && !exhausted && pending.size() < window ) {
+            final String text;
+            try {
+                text = tokener.nextText();
+            } catch( RuntimeException e ) {
+                // reported once the documents read before it have been returned
+                failure = e;
+                exhausted = true;
+                break;
+            }
+            if( text == null ) {
+                exhausted = true;
+            } else {
+                pending.add( executor.submit( new Callable<T>() {
+                    public T call() throws Exception {
+                        return deserializer.bind( deserializer.parse( text ), root, null );
+                    }
+                } ) );
+            }
+        }
+        if( pending.isEmpty() ) {
+            close();
+            if( failure != null ) {
+                RuntimeException e = failure;
+                failure = null;
+                throw e;
+            }
+        }
+        return !pending.isEmpty();
+    }
+
+    private T take() {
+        Future<T> future = pending.removeFirst();
+        try {
+            return future.get();
+        } catch( InterruptedException e ) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new JSONException( "Interrupted while waiting for a json document to be bound", e );
+        } catch( ExecutionException e ) {
+            close();
+            if( e.getCause() instanceof RuntimeException ) throw (RuntimeException)e.getCause();
+            throw new JSONException( e.getCause() );
+        }
+    }
+
+    private boolean end( char c ) {
+        if( c != close ) {
+            throw tokener.syntaxError( "Expected a '" + close + "'" );
+        }
+        if( tokener.isStrict() && tokener.nextClean() != 0 ) {
+            throw tokener.syntaxError( "Unexpected text after the json value" );
+        }
+        return false;
+    }
+}
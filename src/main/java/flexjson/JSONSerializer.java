@@ -15,6 +15,8 @@
  */
 package flexjson;
 
+import flexjson.transformer.ObjectWriter;
+import flexjson.transformer.ObjectWriterCache;
 import flexjson.transformer.Transformer;
 import flexjson.transformer.TypeTransformerMap;
 import flexjson.transformer.TransformerWrapper;
@@ -24,6 +26,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>
@@ -196,6 +199,16 @@ public class JSONSerializer {
 
     private boolean prettyPrint;
     private String rootName;
+    private TypeRegistry typeRegistry;
+    private boolean omitRedundantClassHints;
+    private ObjectWriterCache objectWriters;
+    private int omissions;
+    private final InclusionCache shallowInclusions = new InclusionCache();
+    private final InclusionCache deepInclusions = new InclusionCache();
+    private FragmentCache fragmentCache;
+    private long configuration = CONFIGURATIONS.incrementAndGet();
+
+    private static final AtomicLong CONFIGURATIONS = new AtomicLong();
 
     public JSONSerializer() {
         this.typeTransformerMap = new TypeTransformerMap(TransformerUtil.getDefaultTypeTransformers());
@@ -228,9 +241,118 @@ public class JSONSerializer {
      */
     public JSONSerializer rootName(String rootName) {
         this.rootName = rootName;
+        configurationChanged();
+        return this;
+    }
+
+    /**
+     * Write class hints through the given registry so registered classes are written as short
+     * aliases or numeric ids instead of their fully qualified names.  Deserialize the output with
+     * a JSONDeserializer configured with the same registrations.
+     *
+     * @param typeRegistry the registry class hints are looked up in.
+     * @return this JsonSerializer for chaining configurations
+     */
+    public JSONSerializer typeRegistry(TypeRegistry typeRegistry) {
+        this.typeRegistry = typeRegistry;
+        configurationChanged();
+        return this;
+    }
+
+    /**
+     * Leave out the class hint of an object when its class is exactly the declared type of the
+     * property it's stored in.  JSONDeserializer falls back to the declared type so the hint isn't
+     * needed to read it back.  Hints are still written for the root object, for subclasses of the
+     * declared type, and for objects inside collections and maps.
+     *
+     * @param omitRedundantClassHints true to leave out hints the declared type makes redundant.
+     * @return this JsonSerializer for chaining configurations
+     */
+    public JSONSerializer omitRedundantClassHints(boolean omitRedundantClassHints) {
+        this.omitRedundantClassHints = omitRedundantClassHints;
+        configurationChanged();
+        return this;
+    }
+
+    /**
+     * Write a class through a precomputed {@link ObjectWriter} once this serializer has written it
+     * the given number of times.  The writer has the class's properties and their escaped names
+     * worked out ahead of time, and writes String, number and boolean properties directly when they
+     * use the standard transformers.  Writers are thrown away and built again whenever transformers,
+     * includes or excludes are changed.  Turned off by default.
+     *
+     * @param threshold the number of times a class is written before it gets a writer, or 0 to turn writers off.
+     * @return this JsonSerializer for chaining configurations
+     */
+    public JSONSerializer objectWriters(int threshold) {
+        this.objectWriters = threshold > 0 ? new ObjectWriterCache(threshold) : null;
+        return this;
+    }
+
+    /**
+     * Leave out properties that are null, instead of writing them as null.  A property's
+     * {@link JSON#omit()} replaces this setting.
+     *
+     * @param excludeNulls true to leave out null properties.
+     * @return this JsonSerializer for chaining configurations
+     */
+    public JSONSerializer excludeNulls(boolean excludeNulls) {
+        return omit(Omit.NULLS, excludeNulls);
+    }
+
+    /**
+     * Leave out properties that are an empty String, Collection, Map or array.  A property's
+     * {@link JSON#omit()} replaces this setting.
+     *
+     * @param excludeEmpty true to leave out empty properties.
+     * @return this JsonSerializer for chaining configurations
+     */
+    public JSONSerializer excludeEmpty(boolean excludeEmpty) {
+        return omit(Omit.EMPTY, excludeEmpty);
+    }
+
+    /**
+     * Leave out properties holding the default value of their declared type: null for objects, and
+     * zero, false or '\u0000' for primitives.  Boxed values like an Integer 0 are still written.  A
+     * property's {@link JSON#omit()} replaces this setting.
+     *
+     * @param excludeDefaults true to leave out properties holding defaults.
+     * @return this JsonSerializer for chaining configurations
+     */
+    public JSONSerializer excludeDefaults(boolean excludeDefaults) {
+        return omit(Omit.DEFAULTS, excludeDefaults);
+    }
+
+    private JSONSerializer omit(Omit omission, boolean omit) {
+        if (omit) {
+            omissions |= Omit.mask(omission);
+        } else {
+            omissions &= ~Omit.mask(omission);
+        }
+        configurationChanged();
         return this;
     }
 
+    /**
+     * Write the objects the cache is configured for from their cached json, and cache them when
+     * they're missing.  The same cache can be given to several serializers, and json written under one
+     * configuration is never used for another.  Turned off by default.
+     *
+     * @param fragmentCache the cache to use, or null to turn caching off.
+     * @return this JsonSerializer for chaining configurations
+     */
+    public JSONSerializer fragmentCache(FragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+        return this;
+    }
+
+    private void configurationChanged() {
+        configuration = CONFIGURATIONS.incrementAndGet();
+        if (objectWriters != null) objectWriters.clear();
+        shallowInclusions.clear();
+        deepInclusions.clear();
+    }
+
     // SERIALIZATION
 
     /**
@@ -377,6 +499,12 @@ public class JSONSerializer {
         context.setTypeTransformers(typeTransformerMap);
         context.setPathTransformers(pathTransformerMap);
         context.setPathExpressions(pathExpressions);
+        context.setTypeRegistry(typeRegistry);
+        context.setOmitRedundantClassHints(omitRedundantClassHints);
+        context.setObjectWriters(objectWriters);
+        context.setOmissions(omissions);
+        context.setInclusions(serializationType == SerializationType.DEEP ? deepInclusions : shallowInclusions);
+        context.setFragmentCache(fragmentCache, configuration);
 
         try {
             //initiate serialization of target tree
@@ -414,6 +542,7 @@ public class JSONSerializer {
      */
     public JSONSerializer transform(Transformer transformer, String... fields) {
         transformer = new TransformerWrapper(transformer); 
+        configurationChanged();
         for (String field : fields) {
             if (field.length() == 0) {
                 pathTransformerMap.put(new Path(), transformer);
@@ -435,7 +564,8 @@ public class JSONSerializer {
     public JSONSerializer transform(Transformer transformer, Class... types) {
 
         transformer = new TransformerWrapper(transformer);
-        
+        configurationChanged();
+
         for (Class type : types) {
             typeTransformerMap.putTransformer(type, transformer);
         }
@@ -446,6 +576,7 @@ public class JSONSerializer {
     // INCLUDE/EXCLUDE CONFIGURATION
 
     protected void addExclude(String field) {
+        configurationChanged();
         int index = field.lastIndexOf('.');
         if (index > 0) {
             PathExpression expression = new PathExpression(field.substring(0, index), true);
@@ -457,6 +588,7 @@ public class JSONSerializer {
     }
 
     protected void addInclude(String field) {
+        configurationChanged();
         pathExpressions.add(new PathExpression(field, true));
     }
 
@@ -551,6 +683,7 @@ public class JSONSerializer {
      *               list of strings in dot notation.
      */
     public void setIncludes(List<String> fields) {
+        configurationChanged();
         for (String field : fields) {
             pathExpressions.add(new PathExpression(field, true));
         }
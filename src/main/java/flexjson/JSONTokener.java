@@ -1,9 +1,8 @@
 package flexjson;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
+import java.util.Collection;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.List;
@@ -42,32 +41,119 @@ SOFTWARE.
  */
 public class JSONTokener {
 
+    private static final int BUFFER_SIZE = 8192;
+
     private int index;
     private Reader reader;
+    private char[] buffer;
+    private int position;
+    private int limit;
+    private int mark = -1;
     private char lastChar;
     private boolean useLastChar;
+    private char[] scratch = new char[32];
+    private char[] text;
+    private int textStart;
+    private int textLength;
+    private SymbolTable symbols;
+    private StringBuilder capture;
+    private DuplicateKeyPolicy duplicateKeys = DuplicateKeyPolicy.ERROR;
+    private ObjectMapType objectMapType = ObjectMapType.HASH_MAP;
+    private boolean strict;
+
+    /**
+     * Returned by {@link #resolve(Object, List, int)} for a path that isn't in the value, so a path
+     * that leads to a json null can be told apart from one that leads nowhere.
+     */
+    static final Object MISSING = new Object();
 
 
     /**
-     * Construct a JSONTokener from a string.
+     * Construct a JSONTokener from a reader.  The reader is read ahead in
+     * blocks so it may have been read past the end of the last value.
      *
      * @param reader     A reader.
      */
     public JSONTokener(Reader reader) {
-        this.reader = reader.markSupported() ?
-        		reader : new BufferedReader(reader);
+        this.reader = reader;
+        this.buffer = new char[BUFFER_SIZE];
         this.useLastChar = false;
         this.index = 0;
     }
 
 
+    /**
+     * Construct a JSONTokener that canonicalizes object keys through the given
+     * symbol table instead of one of its own.
+     *
+     * @param reader     A reader.
+     * @param symbols    The table keys are looked up in, or null for a private one.
+     */
+    public JSONTokener(Reader reader, SymbolTable symbols) {
+        this(reader);
+        this.symbols = symbols;
+    }
+
+
     /**
      * Construct a JSONTokener from a string.
      *
      * @param s     A source string.
      */
     public JSONTokener(String s) {
-        this(new StringReader(s));
+        this.buffer = s.toCharArray();
+        this.limit = buffer.length;
+    }
+
+
+    JSONTokener withSymbols(SymbolTable symbols) {
+        this.symbols = symbols;
+        return this;
+    }
+
+
+    /**
+     * Set what happens when an object has the same key more than once.
+     *
+     * @param duplicateKeys  The policy, {@link DuplicateKeyPolicy#ERROR} by default.
+     * @return this JSONTokener.
+     */
+    public JSONTokener duplicateKeys(DuplicateKeyPolicy duplicateKeys) {
+        this.duplicateKeys = duplicateKeys;
+        return this;
+    }
+
+
+    /**
+     * Set the Map implementation objects are parsed into.
+     *
+     * @param objectMapType  The map type, {@link ObjectMapType#HASH_MAP} by default.
+     * @return this JSONTokener.
+     */
+    public JSONTokener objectMapType(ObjectMapType objectMapType) {
+        this.objectMapType = objectMapType;
+        return this;
+    }
+
+
+    /**
+     * Only accept standard json as described by RFC 8259.  Single quotes, unquoted words, '(' arrays,
+     * '=' and ';' separators, trailing commas, \x escapes and literals in other cases are rejected.
+     * Values are read by a dedicated parser that decides what comes next from the first character of a
+     * value and doesn't have to look for any of the extensions, so it's faster than the lenient grammar.
+     * Values skipped by {@link #nextValues(java.util.Collection)} are not checked.
+     *
+     * @param strict  true to only accept standard json, false for the lenient grammar (the default).
+     * @return this JSONTokener.
+     */
+    public JSONTokener strict(boolean strict) {
+        this.strict = strict;
+        return this;
+    }
+
+
+    boolean isStrict() {
+        return strict;
     }
 
 
@@ -84,6 +170,9 @@ public class JSONTokener {
         }
         index -= 1;
         useLastChar = true;
+        if (capture != null && lastChar != 0) {
+            capture.setLength(capture.length() - 1);
+        }
     }
 
 
@@ -136,23 +225,82 @@ public class JSONTokener {
         	this.useLastChar = false;
             if (this.lastChar != 0) {
             	this.index += 1;
+                if (capture != null) {
+                    capture.append(this.lastChar);
+                }
             }
             return this.lastChar;
         }
-        int c;
+        if (position == limit && !fill()) { // End of stream
+            this.lastChar = 0;
+            return 0;
+        }
+        char c = buffer[position++];
+        if (c == 0) {
+            if (strict) {
+                // only the lenient grammar reads a NUL as the end of the input
+                position--;
+                throw syntaxError("Unexpected character U+0000");
+            }
+            this.lastChar = 0;
+            return 0;
+        }
+    	this.index += 1;
+    	this.lastChar = c;
+        if (capture != null) {
+            capture.append(c);
+        }
+        return c;
+    }
+
+
+    /**
+     * Reads the next block of input into the buffer.  Characters from the mark on
+     * are kept so {@link #skipTo(char)} can go back to it.
+     *
+     * @return false at the end of the input.
+     */
+    private boolean fill() throws JSONException {
+        if (reader == null) {
+            return false;
+        }
+        int keep = mark >= 0 ? mark : limit;
+        int remaining = limit - keep;
+        char[] target = remaining == buffer.length ? new char[buffer.length * 2] : buffer;
+        System.arraycopy(buffer, keep, target, 0, remaining);
+        buffer = target;
+        if (mark >= 0) {
+            mark = 0;
+        }
+        position = remaining;
+        limit = remaining;
+        int n;
         try {
-            c = this.reader.read();
+            do {
+                n = reader.read(buffer, limit, buffer.length - limit);
+            } while (n == 0);
         } catch (IOException exc) {
             throw new JSONException(exc);
         }
+        if (n < 0) {
+            return false;
+        }
+        limit += n;
+        return true;
+    }
 
-        if (c <= 0) { // End of stream
-        	this.lastChar = 0;
-            return 0;
+
+    /**
+     * Moves past the characters from..to in the buffer that were read
+     * without going through {@link #next()}.
+     */
+    private void consume(int from, int to) {
+        position = to;
+        index += to - from;
+        lastChar = buffer[to - 1];
+        if (capture != null) {
+            capture.append(buffer, from, to - from);
         }
-    	this.index += 1;
-    	this.lastChar = (char) c;
-        return this.lastChar;
     }
 
 
@@ -187,36 +335,21 @@ public class JSONTokener {
              return "";
          }
 
-         char[] buffer = new char[n];
-         int pos = 0;
-
-         if (this.useLastChar) {
-        	 this.useLastChar = false;
-             buffer[0] = this.lastChar;
-             pos = 1;
-         }
-
-         try {
-             int len;
-             while ((pos < n) && ((len = reader.read(buffer, pos, n - pos)) != -1)) {
-                 pos += len;
+         char[] chars = new char[n];
+         for (int i = 0; i < n; i++) {
+             chars[i] = next();
+             if (chars[i] == 0) {
+                 throw syntaxError("Substring bounds error");
              }
-         } catch (IOException exc) {
-             throw new JSONException(exc);
-         }
-         this.index += pos;
-
-         if (pos < n) {
-             throw syntaxError("Substring bounds error");
          }
-
-         this.lastChar = buffer[n - 1];
-         return new String(buffer);
+         return new String(chars);
      }
 
 
     /**
-     * Get the next char in the string, skipping whitespace.
+     * Get the next char in the string, skipping whitespace.  In strict mode only
+     * the space, tab, line feed and carriage return RFC 8259 allows are skipped,
+     * other control characters are returned so the parser rejects them.
      *
      * @throws JSONException if the syntax of the JSON stream is not correct.
      * @return  A character, or 0 if there are no more characters.
@@ -227,6 +360,9 @@ public class JSONTokener {
             if (c == 0 || c > ' ') {
                 return c;
             }
+            if (strict && c != ' ' && c != '\t' && c != '\n' && c != '\r') {
+                return c;
+            }
         }
     }
 
@@ -243,8 +379,68 @@ public class JSONTokener {
      * @throws JSONException Unterminated string.
      */
     public String nextString(char quote) throws JSONException {
+        readString(quote);
+        return new String(text, textStart, textLength);
+    }
+
+
+    /**
+     * Reads the next object key.  Quoted and unquoted keys are collected into a
+     * reusable buffer and canonicalized through the symbol table, so a key that
+     * repeats throughout the document is only allocated once.
+     *
+     * @return the key.
+     * @throws JSONException If syntax error.
+     */
+    String nextKey() throws JSONException {
+        char c = nextClean();
+        int length;
+        switch (c) {
+            case '"':
+            case '\'':
+                readString(c);
+                return symbol(text, textStart, textLength);
+            case '{':
+            case '[':
+            case '(':
+                back();
+                return nextValue().toString();
+            default:
+                length = 0;
+                while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+                    length = put(length, c);
+                    c = next();
+                }
+                back();
+                while (length > 0 && scratch[length - 1] <= ' ') {
+                    length--;
+                }
+                if (length == 0) {
+                    throw syntaxError("Missing value");
+                }
+        }
+        return symbol(scratch, 0, length);
+    }
+
+
+    private String symbol(char[] chars, int offset, int length) {
+        if (symbols == null) {
+            symbols = new SymbolTable(256, SymbolTable.DEFAULT_MAX_LENGTH);
+        }
+        return symbols.lookup(chars, offset, length);
+    }
+
+
+    /**
+     * Decodes the characters up to the closing quote.  The decoded text is left in
+     * text, textStart and textLength.
+     */
+    private void readString(char quote) throws JSONException {
+        int length = scanString(quote, false);
+        if (length < 0) {
+            return;
+        }
         char c;
-        StringBuilder sb = new StringBuilder();
         for (;;) {
             c = next();
             switch (c) {
@@ -256,37 +452,109 @@ public class JSONTokener {
                 c = next();
                 switch (c) {
                 case 'b':
-                    sb.append('\b');
+                    length = put(length, '\b');
                     break;
                 case 't':
-                    sb.append('\t');
+                    length = put(length, '\t');
                     break;
                 case 'n':
-                    sb.append('\n');
+                    length = put(length, '\n');
                     break;
                 case 'f':
-                    sb.append('\f');
+                    length = put(length, '\f');
                     break;
                 case 'r':
-                    sb.append('\r');
+                    length = put(length, '\r');
                     break;
                 case 'u':
-                    sb.append((char)Integer.parseInt(next(4), 16));
+                    length = put(length, nextHex(4));
                     break;
                 case 'x' :
-                    sb.append((char) Integer.parseInt(next(2), 16));
+                    length = put(length, nextHex(2));
                     break;
                 default:
-                    sb.append(c);
+                    length = put(length, c);
                 }
                 break;
             default:
                 if (c == quote) {
-                    return sb.toString();
+                    setText(scratch, 0, length);
+                    return;
                 }
-                sb.append(c);
+                length = put(length, c);
+            }
+        }
+    }
+
+
+    /**
+     * Looks for the closing quote in what's left of the buffer.  A string without escapes
+     * that ends in the buffer is left where it is, without copying it, and -1 is returned.
+     * Otherwise the characters before the first escape, or all that's left in the buffer,
+     * are copied into the scratch buffer in one go and their number is returned so decoding
+     * can carry on from there a character at a time.
+     */
+    private int scanString(char quote, boolean strict) {
+        if (useLastChar) {
+            return 0;
+        }
+        int start = position;
+        int i = start;
+        while (i < limit) {
+            char c = buffer[i];
+            if (c == quote) {
+                setText(buffer, start, i - start);
+                consume(start, i + 1);
+                return -1;
             }
+            if (c == '\\' || (c < ' ' && (strict || c == 0 || c == '\n' || c == '\r'))) {
+                break;
+            }
+            i++;
         }
+        int length = i - start;
+        if (length > 0) {
+            if (length > scratch.length) {
+                scratch = new char[Math.max(length, scratch.length * 2)];
+            }
+            System.arraycopy(buffer, start, scratch, 0, length);
+            consume(start, i);
+        }
+        return length;
+    }
+
+
+    /**
+     * Decodes the given number of hex digits into a character.
+     */
+    private char nextHex(int digits) throws JSONException {
+        int code = 0;
+        for (int i = 0; i < digits; i++) {
+            int digit = dehexchar(next());
+            if (digit < 0) {
+                throw syntaxError("Illegal hex escape");
+            }
+            code = (code << 4) | digit;
+        }
+        return (char) code;
+    }
+
+
+    private void setText(char[] chars, int offset, int length) {
+        text = chars;
+        textStart = offset;
+        textLength = length;
+    }
+
+
+    private int put(int length, char c) {
+        if (length == scratch.length) {
+            char[] grown = new char[scratch.length * 2];
+            System.arraycopy(scratch, 0, grown, 0, length);
+            scratch = grown;
+        }
+        scratch[length] = c;
+        return length + 1;
     }
 
 
@@ -299,16 +567,16 @@ public class JSONTokener {
      * @throws JSONException if the underlying JSON stream syntax is incorrect
      */
     public String nextTo(char d) throws JSONException {
-        StringBuilder sb = new StringBuilder();
+        int length = 0;
         for (;;) {
             char c = next();
             if (c == d || c == 0 || c == '\n' || c == '\r') {
                 if (c != 0) {
                     back();
                 }
-                return sb.toString().trim();
+                return trimmed(length);
             }
-            sb.append(c);
+            length = put(length, c);
         }
     }
 
@@ -322,7 +590,7 @@ public class JSONTokener {
      */
     public String nextTo(String delimiters) throws JSONException {
         char c;
-        StringBuilder sb = new StringBuilder();
+        int length = 0;
         for (;;) {
             c = next();
             if (delimiters.indexOf(c) >= 0 || c == 0 ||
@@ -330,10 +598,22 @@ public class JSONTokener {
                 if (c != 0) {
                     back();
                 }
-                return sb.toString().trim();
+                return trimmed(length);
             }
-            sb.append(c);
+            length = put(length, c);
+        }
+    }
+
+
+    private String trimmed(int length) {
+        int start = 0;
+        while (start < length && scratch[start] <= ' ') {
+            start++;
+        }
+        while (length > start && scratch[length - 1] <= ' ') {
+            length--;
         }
+        return new String(scratch, start, length - start);
     }
 
 
@@ -345,8 +625,10 @@ public class JSONTokener {
      * @return An object.
      */
     public Object nextValue() throws JSONException {
+        if (strict) {
+            return strictValue();
+        }
         char c = nextClean();
-        String s;
 
         switch (c) {
             case '"':
@@ -370,20 +652,291 @@ public class JSONTokener {
          * formatting character.
          */
 
-        StringBuilder sb = new StringBuilder();
+        int length = 0;
         while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
-            sb.append(c);
+            length = put(length, c);
             c = next();
         }
         back();
 
-        s = sb.toString().trim();
-        if (s.equals("")) {
+        while (length > 0 && scratch[length - 1] <= ' ') {
+            length--;
+        }
+        if (length == 0) {
+            throw syntaxError("Missing value");
+        }
+        return unquotedValue(scratch, length);
+    }
+
+
+    /**
+     * Skip over the next value without building it.  Only brackets and quotes are tracked
+     * so nested objects and arrays are skipped without decoding any of their contents.
+     *
+     * @throws JSONException If syntax error.
+     */
+    public void skipValue() throws JSONException {
+        char c = nextClean();
+        switch (c) {
+            case '"':
+            case '\'':
+                skipString(c);
+                return;
+            case '{':
+            case '[':
+            case '(':
+                skipNested();
+                return;
+        }
+        int length = 0;
+        while (c >= ' ' && ",:]}/\\\"[{;=#".indexOf(c) < 0) {
+            length++;
+            c = next();
+        }
+        back();
+        if (length == 0) {
             throw syntaxError("Missing value");
         }
-        return stringToValue(s);
     }
 
+    /**
+     * Read the text of the next value as it appears in the input without decoding it.  It's
+     * delimited the same way {@link #skipValue()} delimits values.
+     *
+     * @return the text of the next value, or null at the end of the input.
+     * @throws JSONException If syntax error.
+     */
+    String nextText() throws JSONException {
+        if (nextClean() == 0) {
+            return null;
+        }
+        back();
+        capture = new StringBuilder();
+        try {
+            skipValue();
+            return capture.toString();
+        } finally {
+            capture = null;
+        }
+    }
+
+    private void skipNested() throws JSONException {
+        int depth = 1;
+        for (;;) {
+            char c = next();
+            switch (c) {
+                case 0:
+                    throw syntaxError("Unterminated object or array");
+                case '"':
+                case '\'':
+                    skipString(c);
+                    break;
+                case '{':
+                case '[':
+                case '(':
+                    depth++;
+                    break;
+                case '}':
+                case ']':
+                case ')':
+                    if (--depth == 0) {
+                        return;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void skipString(char quote) throws JSONException {
+        for (;;) {
+            char c = next();
+            switch (c) {
+                case 0:
+                case '\n':
+                case '\r':
+                    throw syntaxError("Unterminated string");
+                case '\\':
+                    next();
+                    break;
+                default:
+                    if (c == quote) {
+                        return;
+                    }
+            }
+        }
+    }
+
+    /**
+     * Read the next value, but only decode the values found at the given paths.  Every
+     * other part of the value is skipped with {@link #skipValue()}.  Path segments are
+     * matched against object keys, and against the element index for arrays.  Reading stops
+     * as soon as every path has been found so the rest of the input is left unread.
+     *
+     * @param paths the paths, relative to the next value, to decode.
+     * @return a Map from each path that was found to its value.  Paths that were not
+     * found are not in the Map.
+     * @throws JSONException If syntax error.
+     */
+    public Map<Path, Object> nextValues(Collection<Path> paths) throws JSONException {
+        Map<Path, Object> found = new HashMap<Path, Object>();
+        List<Path> candidates = new ArrayList<Path>(paths);
+        if (!candidates.isEmpty()) {
+            select(candidates, 0, found, candidates.size());
+        }
+        return found;
+    }
+
+    private void select(List<Path> candidates, int depth, Map<Path, Object> found, int total) {
+        List<Path> deeper = null;
+        for (Path path : candidates) {
+            if (path.length() == depth) {
+                Object value = nextValue();
+                for (Path candidate : candidates) {
+                    if (!found.containsKey(candidate)) {
+                        Object selected = resolve(value, candidate.getPath(), depth);
+                        if (selected != MISSING) {
+                            found.put(candidate, selected);
+                        }
+                    }
+                }
+                return;
+            }
+        }
+
+        char c = nextClean();
+        if (c == '{') {
+            if (nextClean() == '}') {
+                return;
+            }
+            back();
+            for (;;) {
+                String key = nextKey();
+                c = nextClean();
+                if (c == '=') {
+                    if (next() != '>') {
+                        back();
+                    }
+                } else if (c != ':') {
+                    throw syntaxError("Expected a ':' after a key");
+                }
+                deeper = matching(candidates, depth, key, -1, found, deeper);
+                if (deeper.isEmpty()) {
+                    skipValue();
+                } else {
+                    select(deeper, depth + 1, found, total);
+                    if (found.size() == total) {
+                        return;
+                    }
+                }
+                switch (nextClean()) {
+                    case ';':
+                    case ',':
+                        if (nextClean() == '}') {
+                            return;
+                        }
+                        back();
+                        break;
+                    case '}':
+                        return;
+                    default:
+                        throw syntaxError("Expected a ',' or '}'");
+                }
+            }
+        } else if (c == '[' || c == '(') {
+            if (nextClean() == ']') {
+                return;
+            }
+            back();
+            for (int index = 0; ; index++) {
+                deeper = matching(candidates, depth, null, index, found, deeper);
+                if (nextClean() == ',') {
+                    back();
+                } else {
+                    back();
+                    if (deeper.isEmpty()) {
+                        skipValue();
+                    } else {
+                        select(deeper, depth + 1, found, total);
+                        if (found.size() == total) {
+                            return;
+                        }
+                    }
+                }
+                switch (nextClean()) {
+                    case ';':
+                    case ',':
+                        if (nextClean() == ']') {
+                            return;
+                        }
+                        back();
+                        break;
+                    case ']':
+                    case ')':
+                        return;
+                    default:
+                        throw syntaxError("Expected a ',' or ']'");
+                }
+            }
+        } else {
+            back();
+            skipValue();
+        }
+    }
+
+    private List<Path> matching(List<Path> candidates, int depth, String key, int index, Map<Path, Object> found, List<Path> reuse) {
+        List<Path> matches = reuse != null ? reuse : new ArrayList<Path>(candidates.size());
+        matches.clear();
+        for (Path candidate : candidates) {
+            String segment = candidate.getPath().get(depth);
+            if (!found.containsKey(candidate) && (key != null ? segment.equals(key) : indexOf(segment) == index)) {
+                matches.add(candidate);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Walks the given Map and List structure following the path segments starting at the given depth.
+     *
+     * @return the value at the end of the path, which may be null, or {@link #MISSING} if the path doesn't exist.
+     */
+    static Object resolve(Object value, List<String> segments, int depth) {
+        for (int i = depth; i < segments.size(); i++) {
+            String segment = segments.get(i);
+            if (value instanceof Map) {
+                Map map = (Map) value;
+                value = map.get(segment);
+                if (value == null && !map.containsKey(segment)) {
+                    return MISSING;
+                }
+            } else if (value instanceof List) {
+                List list = (List) value;
+                int index = indexOf(segment);
+                if (index < 0 || index >= list.size()) {
+                    return MISSING;
+                }
+                value = list.get(index);
+            } else {
+                return MISSING;
+            }
+        }
+        return value;
+    }
+
+    private static int indexOf(String segment) {
+        if (segment.length() == 0 || segment.length() > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < segment.length(); i++) {
+            char c = segment.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
 
     /**
      * Skip characters until the next character is the requested character.
@@ -396,19 +949,23 @@ public class JSONTokener {
      */
     public char skipTo(char to) throws JSONException {
         char c;
+        int startIndex = this.index;
+        char startLastChar = this.lastChar;
+        boolean startUseLastChar = this.useLastChar;
+        mark = position;
         try {
-            int startIndex = this.index;
-            reader.mark(Integer.MAX_VALUE);
             do {
                 c = next();
                 if (c == 0) {
-                    reader.reset();
+                    position = mark;
                     this.index = startIndex;
+                    this.lastChar = startLastChar;
+                    this.useLastChar = startUseLastChar;
                     return c;
                 }
             } while (c != to);
-        } catch (IOException exc) {
-            throw new JSONException(exc);
+        } finally {
+            mark = -1;
         }
 
         back();
@@ -439,7 +996,7 @@ public class JSONTokener {
         char c;
         String key;
 
-        Map<String, Object> jsonObject = new HashMap<String, Object>();
+        Map<String, Object> jsonObject = objectMapType.create();
 
         if (nextClean() != '{') {
             throw syntaxError("A JSONObject text must begin with '{'");
@@ -453,7 +1010,7 @@ public class JSONTokener {
                 return jsonObject;
             default:
                 back();
-                key = nextValue().toString();
+                key = nextKey();
             }
 
             /*
@@ -468,7 +1025,7 @@ public class JSONTokener {
             } else if (c != ':') {
                 throw syntaxError("Expected a ':' after a key");
             }
-            putOnce(jsonObject, key, nextValue());
+            put(jsonObject, key, nextValue());
 
             /*
              * Pairs are separated by ','. We will also tolerate ';'.
@@ -490,17 +1047,39 @@ public class JSONTokener {
         }
     }
 
-    private void putOnce(Map<String, Object> jsonObject, String key, Object value) {
-        if( key != null ) {
-            if( !jsonObject.containsKey(key) ) {
-                jsonObject.put( key, value );
+    private void put(Map<String, Object> jsonObject, String key, Object value) {
+        if (key == null) return;
+        switch (duplicateKeys) {
+        case LAST_WINS:
+            jsonObject.put(key, value);
+            break;
+        case UNCHECKED:
+            if (jsonObject instanceof CompactMap) {
+                ((CompactMap) jsonObject).append(key, value);
             } else {
-                throw new JSONException("Duplicate key \"" + key + "\"");
+                jsonObject.put(key, value);
+            }
+            break;
+        default:
+            // a key that was already present doesn't change the size, so one put tells us
+            int size = jsonObject.size();
+            Object previous = jsonObject.put(key, value);
+            if (jsonObject.size() == size) {
+                if (duplicateKeys == DuplicateKeyPolicy.ERROR) {
+                    throw new JSONException("Duplicate key \"" + key + "\"");
+                }
+                jsonObject.put(key, previous);
             }
         }
     }
 
     public List<Object> parseArray() {
+        if (strict) {
+            if (nextClean() != '[') {
+                throw syntaxError("A JSONArray text must start with '['");
+            }
+            return strictArray();
+        }
         List<Object> list = new ArrayList<Object>();
         
         char c = nextClean();
@@ -545,20 +1124,217 @@ public class JSONTokener {
         }
     }
 
-    private Object stringToValue(String s) {
-        if (s.equals("")) {
-            return s;
+    private Object strictValue() {
+        char c = nextClean();
+        switch (c) {
+            case '"':
+                readStrictString();
+                return new String(text, textStart, textLength);
+            case '{':
+                return strictObject();
+            case '[':
+                return strictArray();
+            case 't':
+                expect('r', 'u', 'e');
+                return Boolean.TRUE;
+            case 'f':
+                expect('a', 'l', 's', 'e');
+                return Boolean.FALSE;
+            case 'n':
+                expect('u', 'l', 'l');
+                return null;
+            case '-':
+            case '0':
+            case '1':
+            case '2':
+            case '3':
+            case '4':
+            case '5':
+            case '6':
+            case '7':
+            case '8':
+            case '9':
+                return strictNumber(c);
+            case 0:
+                throw syntaxError("Missing value");
+            default:
+                throw syntaxError("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> strictObject() {
+        Map<String, Object> jsonObject = objectMapType.create();
+        char c = nextClean();
+        if (c == '}') {
+            return jsonObject;
+        }
+        for (;;) {
+            if (c != '"') {
+                throw syntaxError("Expected a string key");
+            }
+            readStrictString();
+            String key = symbol(text, textStart, textLength);
+            if (nextClean() != ':') {
+                throw syntaxError("Expected a ':' after a key");
+            }
+            put(jsonObject, key, strictValue());
+            switch (nextClean()) {
+                case ',':
+                    c = nextClean();
+                    break;
+                case '}':
+                    return jsonObject;
+                default:
+                    throw syntaxError("Expected a ',' or '}'");
+            }
+        }
+    }
+
+    private List<Object> strictArray() {
+        List<Object> list = new ArrayList<Object>();
+        if (nextClean() == ']') {
+            return list;
+        }
+        back();
+        for (;;) {
+            list.add(strictValue());
+            switch (nextClean()) {
+                case ',':
+                    break;
+                case ']':
+                    return list;
+                default:
+                    throw syntaxError("Expected a ',' or ']'");
+            }
+        }
+    }
+
+    private Object strictNumber(char c) {
+        int length = 0;
+        if (c == '-') {
+            length = put(length, c);
+            c = next();
+        }
+        if (c == '0') {
+            length = put(length, c);
+            c = next();
+            if (c >= '0' && c <= '9') {
+                throw syntaxError("Numbers can't have leading zeros");
+            }
+        } else if (c >= '1' && c <= '9') {
+            do {
+                length = put(length, c);
+                c = next();
+            } while (c >= '0' && c <= '9');
+        } else {
+            throw syntaxError("Expected a digit");
         }
-        if (s.equalsIgnoreCase("true")) {
+        if (c == '.') {
+            length = put(length, c);
+            c = next();
+            if (c < '0' || c > '9') {
+                throw syntaxError("Expected a digit after '.'");
+            }
+            do {
+                length = put(length, c);
+                c = next();
+            } while (c >= '0' && c <= '9');
+        }
+        if (c == 'e' || c == 'E') {
+            length = put(length, c);
+            c = next();
+            if (c == '+' || c == '-') {
+                length = put(length, c);
+                c = next();
+            }
+            if (c < '0' || c > '9') {
+                throw syntaxError("Expected a digit in the exponent");
+            }
+            do {
+                length = put(length, c);
+                c = next();
+            } while (c >= '0' && c <= '9');
+        }
+        back();
+        JsonNumber number = JsonNumber.parse(scratch, 0, length);
+        return number != null ? number : new JsonNumber(new String(scratch, 0, length));
+    }
+
+    /**
+     * Decodes a string after its opening quote allowing only the escapes and characters
+     * RFC 8259 allows.  The decoded text is left in text, textStart and textLength.
+     */
+    private void readStrictString() throws JSONException {
+        int length = scanString('"', true);
+        if (length < 0) {
+            return;
+        }
+        for (;;) {
+            char c = next();
+            if (c == '"') {
+                setText(scratch, 0, length);
+                return;
+            } else if (c == '\\') {
+                c = next();
+                switch (c) {
+                    case '"':
+                    case '\\':
+                    case '/':
+                        break;
+                    case 'b':
+                        c = '\b';
+                        break;
+                    case 't':
+                        c = '\t';
+                        break;
+                    case 'n':
+                        c = '\n';
+                        break;
+                    case 'f':
+                        c = '\f';
+                        break;
+                    case 'r':
+                        c = '\r';
+                        break;
+                    case 'u':
+                        c = nextHex(4);
+                        break;
+                    case 0:
+                        throw syntaxError("Unterminated string");
+                    default:
+                        throw syntaxError("Illegal escape '\\" + c + "'");
+                }
+            } else if (c < ' ') {
+                throw syntaxError(c == 0 || c == '\n' || c == '\r' ? "Unterminated string" : "Control characters must be escaped in strings");
+            }
+            length = put(length, c);
+        }
+    }
+
+    private void expect(char... literal) {
+        for (char c : literal) {
+            if (next() != c) {
+                throw syntaxError("Expected true, false or null");
+            }
+        }
+    }
+
+    private Object unquotedValue(char[] chars, int length) {
+        if (matchesIgnoreCase(chars, length, "true")) {
             return Boolean.TRUE;
         }
-        if (s.equalsIgnoreCase("false")) {
+        if (matchesIgnoreCase(chars, length, "false")) {
             return Boolean.FALSE;
         }
-        if (s.equalsIgnoreCase("null")) {
+        if (matchesIgnoreCase(chars, length, "null")) {
             return null;
         }
 
+        JsonNumber number = JsonNumber.parse(chars, 0, length);
+        if (number != null) {
+            return number;
+        }
+        String s = new String(chars, 0, length);
         if( isNumber(s) ) {
             return new JsonNumber( s );
         } else {
@@ -566,6 +1342,18 @@ public class JSONTokener {
         }
     }
 
+    private static boolean matchesIgnoreCase(char[] chars, int length, String literal) {
+        if (length != literal.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (Character.toLowerCase(chars[i]) != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean isNumber(String s) {
         for( int i = 0; i < s.length(); i++ ) {
             char c = s.charAt(i);
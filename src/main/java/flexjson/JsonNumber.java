@@ -3,104 +3,301 @@ package flexjson;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
+/**
+ * A number read from a JSON stream before it's known what Java type it will be bound to.  When
+ * the tokener can represent the number exactly as a long significand and a decimal scale it does
+ * so and the number's text is only produced if someone asks for it.  Numbers with more digits
+ * than fit in a long, or legacy hex and octal forms, keep their text and are parsed the first
+ * time a value is requested.  Either way the converted value is remembered so binding the same
+ * number more than once doesn't parse it again.
+ */
 public class JsonNumber extends Number {
+
+    private static final int MAX_EXACT_DIGITS = 18;
+
+    private static final float[] FLOAT_POWERS_OF_TEN = { 1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+
     private String input;
+    private long significand;
+    private int scale;
+    private boolean exact;
+    private boolean decimal;
+
+    private boolean integralParsed;
+    private long integral;
+    private boolean doubleParsed;
+    private double doubleValue;
 
     public JsonNumber(String input) {
         this.input = input;
+        this.decimal = !isHex() && (input.indexOf('.') >= 0 || input.indexOf('e') >= 0 || input.indexOf('E') >= 0);
+    }
+
+    JsonNumber(long significand, int scale, boolean decimal) {
+        this.significand = significand;
+        this.scale = scale;
+        this.decimal = decimal;
+        this.exact = true;
+    }
+
+    /**
+     * Reads a number written in JSON's number grammar straight out of a character buffer.
+     *
+     * @return the number, or null if the characters aren't a JSON number.
+     */
+    static JsonNumber parse(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = false;
+        if( i < end && chars[i] == '-' ) {
+            negative = true;
+            i++;
+        }
+        int integerStart = i;
+        long significand = 0;
+        int digits = 0;
+        while( i < end && chars[i] >= '0' && chars[i] <= '9' ) {
+            if( digits > 0 || chars[i] != '0' ) {
+                if( ++digits <= MAX_EXACT_DIGITS ) significand = significand * 10 + (chars[i] - '0');
+            }
+            i++;
+        }
+        int integerDigits = i - integerStart;
+        if( integerDigits == 0 || (integerDigits > 1 && chars[integerStart] == '0') ) {
+            return null;
+        }
+
+        boolean decimal = false;
+        int fractionDigits = 0;
+        if( i < end && chars[i] == '.' ) {
+            decimal = true;
+            i++;
+            while( i < end && chars[i] >= '0' && chars[i] <= '9' ) {
+                if( digits > 0 || chars[i] != '0' ) {
+                    if( ++digits <= MAX_EXACT_DIGITS ) significand = significand * 10 + (chars[i] - '0');
+                }
+                fractionDigits++;
+                i++;
+            }
+            if( fractionDigits == 0 ) return null;
+        }
+
+        int exponent = 0;
+        if( i < end && (chars[i] == 'e' || chars[i] == 'E') ) {
+            decimal = true;
+            i++;
+            boolean negativeExponent = false;
+            if( i < end && (chars[i] == '+' || chars[i] == '-') ) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            while( i < end && chars[i] >= '0' && chars[i] <= '9' ) {
+                if( exponent < 100000 ) exponent = exponent * 10 + (chars[i] - '0');
+                i++;
+            }
+            if( i == exponentStart ) return null;
+            if( negativeExponent ) exponent = -exponent;
+        }
+        if( i != end ) {
+            return null;
+        }
+
+        // a long significand can't hold the sign of a negative zero, so the text keeps it
+        if( digits > MAX_EXACT_DIGITS || (negative && significand == 0) ) {
+            return new JsonNumber( new String( chars, offset, length ) );
+        }
+        return new JsonNumber( negative ? -significand : significand, fractionDigits - exponent, decimal );
+    }
+
+    /**
+     * Reads an integer written in JSON's number grammar straight out of a character buffer.
+     *
+     * @return the integer, or Long.MIN_VALUE if the characters aren't an integer of at most 18 digits.
+     */
+    static long parseLong(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && chars[i] == '-';
+        if( negative ) i++;
+        int digits = end - i;
+        if( digits == 0 || digits > MAX_EXACT_DIGITS || (digits > 1 && chars[i] == '0') ) return Long.MIN_VALUE;
+        long value = 0;
+        for( ; i < end; i++ ) {
+            char c = chars[i];
+            if( c < '0' || c > '9' ) return Long.MIN_VALUE;
+            value = value * 10 + (c - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads a number written in JSON's number grammar straight out of a character buffer without
+     * creating a JsonNumber.
+     *
+     * @return the closest double, or NaN if the characters aren't a JSON number with at most 18
+     * significant digits.
+     */
+    static double parseDouble(char[] chars, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        boolean negative = i < end && chars[i] == '-';
+        if( negative ) i++;
+        int integerStart = i;
+        long significand = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for( ; i < end; i++ ) {
+            char c = chars[i];
+            if( c == '.' && !fraction ) {
+                if( i == integerStart || i + 1 == end ) return Double.NaN;
+                fraction = true;
+                continue;
+            }
+            if( c < '0' || c > '9' ) break;
+            if( digits > 0 || c != '0' ) {
+                if( ++digits > MAX_EXACT_DIGITS ) return Double.NaN;
+                significand = significand * 10 + (c - '0');
+            }
+            if( fraction ) scale++;
+        }
+        if( i == integerStart || (chars[integerStart] == '0' && integerStart + 1 < end && chars[integerStart + 1] >= '0' && chars[integerStart + 1] <= '9') ) {
+            return Double.NaN;
+        }
+        int exponent = 0;
+        if( i < end ) {
+            if( chars[i] != 'e' && chars[i] != 'E' ) return Double.NaN;
+            i++;
+            boolean negativeExponent = false;
+            if( i < end && (chars[i] == '+' || chars[i] == '-') ) {
+                negativeExponent = chars[i] == '-';
+                i++;
+            }
+            if( i == end ) return Double.NaN;
+            for( ; i < end; i++ ) {
+                char c = chars[i];
+                if( c < '0' || c > '9' ) return Double.NaN;
+                if( exponent < 100000 ) exponent = exponent * 10 + (c - '0');
+            }
+            if( negativeExponent ) exponent = -exponent;
+        }
+        double value = FastDoubleParser.toDouble( significand, exponent - scale );
+        return negative ? -value : value;
     }
 
     @Override
     public int intValue() {
-        return toInteger();
+        long value = integralValue();
+        if( value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ) throw outOfRange();
+        return (int)value;
     }
 
     @Override
     public long longValue() {
-        return toLong();
+        return integralValue();
     }
 
     @Override
     public float floatValue() {
-        return toFloat();
+        if( exact && significand > -(1L << 24) && significand < (1L << 24) && scale >= -10 && scale <= 10 ) {
+            // both operands are exact floats so the single rounding step gives the correctly rounded result
+            float value = significand;
+            return scale < 0 ? value * FLOAT_POWERS_OF_TEN[-scale] : value / FLOAT_POWERS_OF_TEN[scale];
+        }
+        return Float.parseFloat( toString() );
     }
 
     @Override
     public double doubleValue() {
-        return toDouble();
+        if( !doubleParsed ) {
+            doubleValue = exact ? FastDoubleParser.toDouble( significand, -scale ) : Double.parseDouble( input );
+            doubleParsed = true;
+        }
+        return doubleValue;
     }
 
     public BigInteger toBigInteger() {
-        if( isHex() ) {
+        if( exact && !decimal ) {
+            return BigInteger.valueOf( significand );
+        } else if( isHex() ) {
             return new BigInteger( input.substring(2), 16 );
         } else if( isOctal() ) {
             return new BigInteger( input.substring(1), 8 );
         } else {
-            return new BigInteger( input );
+            return new BigInteger( toString() );
         }
     }
 
     public Double toDouble() {
-        return Double.parseDouble( input );
+        return doubleValue();
     }
 
     public Short toShort() {
-        if( isHex() ) {
-            return Short.parseShort( input.substring(2), 16 );
-        } else if( isOctal() ) {
-            return Short.parseShort(input.substring(1), 8);
-        } else {
-            return Short.parseShort( input );
-        }
+        long value = integralValue();
+        if( value < Short.MIN_VALUE || value > Short.MAX_VALUE ) throw outOfRange();
+        return (short)value;
     }
 
     public Integer toInteger() {
-        if( isHex() ) {
-            return Integer.parseInt(input.substring(2), 16);
-        } else if( isOctal() ) {
-            return Integer.parseInt(input.substring(1), 8);
-        } else {
-            return Integer.parseInt(input);
-        }
+        return intValue();
     }
 
     public Float toFloat() {
-        return Float.parseFloat( input );
+        return floatValue();
     }
 
     public Long toLong() {
-        if( isHex() ) {
-            return Long.parseLong(input.substring(2), 16);
-        } else if( isOctal() ) {
-            return Long.parseLong(input.substring(1), 8);
-        } else {
-            return Long.parseLong(input);
-        }
+        return longValue();
     }
 
     public Byte toByte() {
-        if( isHex() ) {
-            return Byte.parseByte(input.substring(2), 16);
-        } else if( isOctal() ) {
-            return Byte.parseByte(input.substring(1), 8);
-        } else {
-            return Byte.parseByte(input);
-        }
+        long value = integralValue();
+        if( value < Byte.MIN_VALUE || value > Byte.MAX_VALUE ) throw outOfRange();
+        return (byte)value;
     }
 
     public BigDecimal toBigDecimal() {
-        return new BigDecimal( input );
+        return exact ? BigDecimal.valueOf( significand, scale ) : new BigDecimal( input );
     }
 
-    private boolean isHex() {
-        return input.startsWith("0x");
+    public boolean isDecimal() {
+        return decimal;
     }
 
-    private boolean isOctal() {
-        return input.length() > 1 && input.charAt(0) == '0' && Character.isDigit( input.charAt(1) );
+    @Override
+    public String toString() {
+        if( input == null ) {
+            input = decimal ? BigDecimal.valueOf( significand, scale ).toString() : Long.toString( significand );
+        }
+        return input;
     }
 
-    public boolean isDecimal() {
-        return input.contains(".");
+    private long integralValue() {
+        if( !integralParsed ) {
+            if( exact && !decimal ) {
+                integral = significand;
+            } else if( isHex() ) {
+                integral = Long.parseLong( input.substring(2), 16 );
+            } else if( isOctal() ) {
+                integral = Long.parseLong( input.substring(1), 8 );
+            } else {
+                integral = Long.parseLong( toString() );
+            }
+            integralParsed = true;
+        }
+        return integral;
+    }
+
+    private NumberFormatException outOfRange() {
+        return new NumberFormatException( "Value out of range: \"" + toString() + "\"" );
+    }
+
+    private boolean isHex() {
+        return input != null && input.startsWith("0x");
+    }
+
+    private boolean isOctal() {
+        return input != null && input.length() > 1 && input.charAt(0) == '0' && Character.isDigit( input.charAt(1) );
     }
 }
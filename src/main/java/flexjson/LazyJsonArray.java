@@ -0,0 +1,99 @@
+package flexjson;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read only {@link java.util.List} view over an array recorded in a {@link JSONIndex}.  Elements
+ * are decoded the first time they are accessed and remembered after that.
+ */
+public class LazyJsonArray extends AbstractList<Object> implements RandomAccess {
+
+    private final JSONIndex index;
+    private final int node;
+    private int[] elements;
+    private Object[] values;
+    private boolean[] decoded;
+
+    LazyJsonArray(JSONIndex index, int node) {
+        this.index = index;
+        this.node = node;
+    }
+
+    @Override
+    public int size() {
+        return index.countAt( node );
+    }
+
+    @Override
+    public Object get(int i) {
+        int[] elements = getElements();
+        if( i < 0 || i >= elements.length ) {
+            throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + elements.length );
+        }
+        if( !decoded[i] ) {
+            values[i] = index.valueAt( elements[i] );
+            decoded[i] = true;
+        }
+        return values[i];
+    }
+
+    /**
+     * @return true if the element at i is a json number.  Numbers can be read with {@link #getInt(int)},
+     * {@link #getLong(int)} or {@link #getDouble(int)} without decoding them into JsonNumbers.
+     */
+    public boolean isNumber(int i) {
+        return index.typeAt( node( i ) ) == JSONIndex.NUMBER;
+    }
+
+    /**
+     * @return the same as ((Number)get(i)).intValue().
+     */
+    public int getInt(int i) {
+        long value = index.longAt( node( i ) );
+        if( value != Long.MIN_VALUE && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE ) {
+            return (int)value;
+        }
+        return ((Number)get( i )).intValue();
+    }
+
+    /**
+     * @return the same as ((Number)get(i)).longValue().
+     */
+    public long getLong(int i) {
+        long value = index.longAt( node( i ) );
+        return value != Long.MIN_VALUE ? value : ((Number)get( i )).longValue();
+    }
+
+    /**
+     * @return the same as ((Number)get(i)).doubleValue().
+     */
+    public double getDouble(int i) {
+        double value = index.doubleAt( node( i ) );
+        return !Double.isNaN( value ) ? value : ((Number)get( i )).doubleValue();
+    }
+
+    private int node(int i) {
+        int[] elements = getElements();
+        if( i < 0 || i >= elements.length ) {
+            throw new IndexOutOfBoundsException( "Index: " + i + ", Size: " + elements.length );
+        }
+        return elements[i];
+    }
+
+    private int[] getElements() {
+        if( elements == null ) {
+            int count = size();
+            int[] found = new int[count];
+            int current = node + 1;
+            for( int i = 0; i < count; i++ ) {
+                found[i] = current;
+                current = index.skip( current );
+            }
+            values = new Object[count];
+            decoded = new boolean[count];
+            elements = found;
+        }
+        return elements;
+    }
+}
@@ -0,0 +1,152 @@
+package flexjson;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read only {@link java.util.Map} view over an object recorded in a {@link JSONIndex}.  Keys and values
+ * are decoded the first time they are accessed and remembered after that.
+ */
+public class LazyJsonObject extends AbstractMap<String,Object> {
+
+    private final JSONIndex index;
+    private final int node;
+    private int[] members;
+    private String[] keys;
+    private Object[] values;
+    private boolean[] decoded;
+
+    LazyJsonObject(JSONIndex index, int node) {
+        this.index = index;
+        this.node = node;
+    }
+
+    @Override
+    public int size() {
+        return index.countAt( node );
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && find( (String)key ) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if( !(key instanceof String) ) return null;
+        int member = find( (String)key );
+        return member >= 0 ? valueAt( member ) : null;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<Entry<String, Object>>() {
+                    private int member = 0;
+
+                    public boolean hasNext() {
+                        return member < size();
+                    }
+
+                    public Entry<String, Object> next() {
+                        if( !hasNext() ) throw new NoSuchElementException();
+                        return new MemberEntry( member++ );
+                    }
+
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+
+            public int size() {
+                return LazyJsonObject.this.size();
+            }
+        };
+    }
+
+    private int find( String key ) {
+        int[] members = getMembers();
+        for( int i = 0; i < members.length; i++ ) {
+            if( keys[i] != null ? keys[i].equals( key ) : index.stringEquals( members[i], key ) ) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String keyAt( int member ) {
+        int[] members = getMembers();
+        if( keys[member] == null ) {
+            keys[member] = index.keyAt( members[member] );
+        }
+        return keys[member];
+    }
+
+    private Object valueAt( int member ) {
+        int[] members = getMembers();
+        if( !decoded[member] ) {
+            values[member] = index.valueAt( members[member] + 1 );
+            decoded[member] = true;
+        }
+        return values[member];
+    }
+
+    private int[] getMembers() {
+        if( members == null ) {
+            int count = size();
+            int[] found = new int[count];
+            int current = node + 1;
+            for( int i = 0; i < count; i++ ) {
+                found[i] = current;
+                current = index.skip( current + 1 );
+            }
+            keys = new String[count];
+            values = new Object[count];
+            decoded = new boolean[count];
+            members = found;
+        }
+        return members;
+    }
+
+    private class MemberEntry implements Map.Entry<String,Object> {
+        private final int member;
+
+        MemberEntry(int member) {
+            this.member = member;
+        }
+
+        public String getKey() {
+            return keyAt( member );
+        }
+
+        public Object getValue() {
+            return valueAt( member );
+        }
+
+        public Object setValue(Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        public boolean equals(Object o) {
+            if( !(o instanceof Map.Entry) ) return false;
+            Map.Entry other = (Map.Entry)o;
+            Object value = getValue();
+            return getKey().equals( other.getKey() ) && (value == null ? other.getValue() == null : value.equals( other.getValue() ));
+        }
+
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
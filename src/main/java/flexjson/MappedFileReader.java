@@ -0,0 +1,120 @@
+package flexjson;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Reads a file by memory mapping it and decoding the mapped bytes straight into the caller's buffer,
+ * so the bytes aren't copied onto the heap first and files that are read often are served from the
+ * page cache.  Files are mapped a window at a time so they can be larger than a single mapping
+ * allows.  A byte order mark at the start of the file is skipped.
+ */
+final class MappedFileReader extends Reader {
+
+    static final long DEFAULT_WINDOW = 256L * 1024 * 1024;
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long size;
+    private final long windowSize;
+    private final CharsetDecoder decoder;
+    private MappedByteBuffer window;
+    private long windowStart;
+    private CharBuffer single;
+    private boolean ended;
+
+    MappedFileReader(File file, Charset charset) throws IOException {
+        this( file, charset, DEFAULT_WINDOW );
+    }
+
+    MappedFileReader(File file, Charset charset, long windowSize) throws IOException {
+        this.file = new RandomAccessFile( file, "r" );
+        boolean opened = false;
+        try {
+            this.channel = this.file.getChannel();
+            this.size = channel.size();
+            this.windowSize = windowSize;
+            this.decoder = charset.newDecoder()
+                    .onMalformedInput( CodingErrorAction.REPLACE )
+                    .onUnmappableCharacter( CodingErrorAction.REPLACE );
+            map( 0 );
+            if( size >= 3 && (window.get( 0 ) & 0xFF) == 0xEF && (window.get( 1 ) & 0xFF) == 0xBB && (window.get( 2 ) & 0xFF) == 0xBF ) {
+                window.position( 3 );
+            }
+            opened = true;
+        } finally {
+            if( !opened ) {
+                try {
+                    this.file.close();
+                } catch( IOException e ) {
+                    // keep the exception that stopped the file from being mapped
+                }
+            }
+        }
+    }
+
+    public int read(char[] buffer, int offset, int length) throws IOException {
+        if( length == 0 ) return 0;
+        if( length == 1 ) {
+            // a surrogate pair doesn't fit in a single char so decode into a buffer of two
+            if( single == null ) {
+                single = CharBuffer.allocate( 2 );
+                single.flip();
+            }
+            if( !single.hasRemaining() ) {
+                single.clear();
+                int n = decode( single );
+                single.flip();
+                if( n < 0 ) return -1;
+            }
+            buffer[offset] = single.get();
+            return 1;
+        }
+        if( single != null && single.hasRemaining() ) {
+            buffer[offset] = single.get();
+            return 1;
+        }
+        return decode( CharBuffer.wrap( buffer, offset, length ) );
+    }
+
+    private int decode(CharBuffer out) throws IOException {
+        if( ended ) return -1;
+        int start = out.position();
+        for(;;) {
+            boolean last = windowStart + window.limit() >= size;
+            CoderResult result = decoder.decode( window, out, last );
+            if( result.isError() ) result.throwException();
+            if( out.position() > start || result.isOverflow() ) {
+                return out.position() - start;
+            }
+            if( last ) {
+                decoder.flush( out );
+                ended = true;
+                window = null;
+                return out.position() > start ? out.position() - start : -1;
+            }
+            // any bytes of a character split across windows are mapped again at the start of the next one
+            map( windowStart + window.position() );
+        }
+    }
+
+    private void map(long start) throws IOException {
+        window = channel.map( FileChannel.MapMode.READ_ONLY, start, Math.min( windowSize, size - start ) );
+        windowStart = start;
+    }
+
+    public void close() throws IOException {
+        window = null;
+        ended = true;
+        file.close();
+    }
+}
@@ -5,18 +5,51 @@ import flexjson.factories.*;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.lang.reflect.*;
 
 public class ObjectBinder {
 
+    // marks classes that were resolved and have no factory
+    private static final ObjectFactory NO_FACTORY = new ObjectFactory() {
+        public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
+            return null;
+        }
+    };
+
     private LinkedList<Object> objectStack = new LinkedList<Object>();
     private LinkedList<Object> jsonStack = new LinkedList<Object>();
     private Path currentPath = new Path();
     private Map<Class,ObjectFactory> factories;
-    private Map<Path,ObjectFactory> pathFactories = new HashMap<Path,ObjectFactory>();
+    private PathTrie pathFactories = new PathTrie();
+    private ConcurrentMap<Class,ObjectFactory> resolvedFactories = new ConcurrentHashMap<Class,ObjectFactory>();
+    private TypeRegistry typeRegistry = new TypeRegistry();
+    private ObjectFactory rootFactory;
+    // the factories are shared with other binders and have to be copied before they're changed
+    private boolean shared;
 
     public ObjectBinder() {
-        factories = new HashMap<Class,ObjectFactory>();
+        factories = defaultFactories();
+    }
+
+    /**
+     * Creates a binder over factories prepared once and shared by many binders, like the ones a
+     * {@link CompiledDeserializer} hands out.  Nothing is copied unless use() is called on the binder.
+     *
+     * @param rootFactory creates the root object in place of whatever's registered for the root path, or null.
+     */
+    ObjectBinder(Map<Class,ObjectFactory> factories, PathTrie pathFactories, ConcurrentMap<Class,ObjectFactory> resolvedFactories, TypeRegistry typeRegistry, ObjectFactory rootFactory) {
+        this.factories = factories;
+        this.pathFactories = pathFactories;
+        this.resolvedFactories = resolvedFactories;
+        this.typeRegistry = typeRegistry;
+        this.rootFactory = rootFactory;
+        this.shared = true;
+    }
+
+    static Map<Class,ObjectFactory> defaultFactories() {
+        Map<Class,ObjectFactory> factories = new HashMap<Class,ObjectFactory>();
         factories.put( Object.class, new BeanObjectFactory() );
         factories.put( Collection.class, new ListObjectFactory() );
         factories.put( List.class, new ListObjectFactory() );
@@ -54,15 +87,37 @@ public class ObjectBinder {
          * convert it to a number.
          */
         factories.put( JsonNumber.class, new JsonNumberObjectFactory() );
+        return factories;
     }
 
     public ObjectBinder use(Path path, ObjectFactory factory) {
-        pathFactories.put( path, factory );
+        unshare();
+        pathFactories.put( path.getPath(), factory );
         return this;
     }
 
     public ObjectBinder use(Class clazz, ObjectFactory factory) {
+        unshare();
         factories.put( clazz, factory );
+        resolvedFactories.clear();
+        return this;
+    }
+
+    private void unshare() {
+        if( shared ) {
+            factories = new HashMap<Class,ObjectFactory>( factories );
+            pathFactories = pathFactories.copy();
+            resolvedFactories = new ConcurrentHashMap<Class,ObjectFactory>( resolvedFactories );
+            shared = false;
+        }
+    }
+
+    /**
+     * @param typeRegistry resolves the "class" hints found in json objects.
+     * @return this instance for method chaining.
+     */
+    public ObjectBinder typeRegistry(TypeRegistry typeRegistry) {
+        this.typeRegistry = typeRegistry;
         return this;
     }
 
@@ -136,30 +191,35 @@ public class ObjectBinder {
         try {
             objectStack.add( target );
             BeanAnalyzer analyzer = BeanAnalyzer.analyze( target.getClass() );
-            for( BeanProperty descriptor : analyzer.getProperties() ) {
-                if( containsFieldInJson(jsonOwner, descriptor) ) {
-                    Object value = findFieldInJson( jsonOwner, descriptor );
-                    if( descriptor.isWritable() ) {
-                        currentPath.enqueue( descriptor.getName() );
-                        Method setMethod = descriptor.getWriteMethod();
-                        if( setMethod != null ) {
-                            Type[] types = setMethod.getGenericParameterTypes();
-                            if( types.length == 1 ) {
-                                Type paramType = types[0];
-                                setMethod.invoke( objectStack.getLast(), bind( value, resolveParameterizedTypes( paramType, targetType ) ) );
-                            } else {
-                                throw new JSONException(currentPath + ":  Expected a single parameter for method " + target.getClass().getName() + "." + setMethod.getName() + " but got " + types.length );
-                            }
-                        } else {
-                            Field field = descriptor.getProperty();
-                            if( field != null ) {
-                                field.setAccessible( true );
-                                field.set( target, bind( value, field.getGenericType() ) );
-                            }
-                        }
-                        currentPath.pop();
+            for( Object entry : jsonOwner.entrySet() ) {
+                Map.Entry json = (Map.Entry)entry;
+                if( !(json.getKey() instanceof String) ) continue;
+                String key = (String)json.getKey();
+                BeanProperty descriptor = analyzer.getJsonProperty( key );
+                if( descriptor == null || !descriptor.isWritable() ) continue;
+
+                Object value = json.getValue();
+                if( key.equals( descriptor.getJsonName() ) ) {
+                    // a null value defers to the capitalized key if that's present too
+                    if( value == null && !key.equals( BeanAnalyzer.capitalize( key ) ) && jsonOwner.containsKey( BeanAnalyzer.capitalize( key ) ) ) continue;
+                } else if( jsonOwner.get( descriptor.getJsonName() ) != null ) {
+                    continue;
+                }
+
+                currentPath.enqueue( descriptor.getName() );
+                Method setMethod = descriptor.getWriteMethod();
+                if( descriptor.isGenerated() ) {
+                    descriptor.setValue( target, bindProperty( descriptor, value, resolveParameterizedTypes( descriptor.getWriteType(), targetType ) ) );
+                } else if( setMethod != null ) {
+                    setMethod.invoke( objectStack.getLast(), bindProperty( descriptor, value, resolveParameterizedTypes( descriptor.getWriteType(), targetType ) ) );
+                } else {
+                    Field field = descriptor.getProperty();
+                    if( field != null ) {
+                        field.setAccessible( true );
+                        field.set( target, bindProperty( descriptor, value, descriptor.getWriteType() ) );
                     }
                 }
+                currentPath.pop();
             }
             return objectStack.removeLast();
         } catch (IllegalAccessException e) {
@@ -169,6 +229,28 @@ public class ObjectBinder {
         }
     }
 
+    /**
+     * Binds the value of a property with the ObjectFactory the property was annotated with, unless a
+     * factory was registered for the current path, which always wins.
+     */
+    private Object bindProperty( BeanProperty descriptor, Object value, Type targetType ) {
+        ObjectFactory factory;
+        try {
+            factory = descriptor.getObjectFactory();
+        } catch( InstantiationException e ) {
+            throw new JSONException( currentPath + ":  Could not instantiate the ObjectFactory of " + descriptor.getName(), e );
+        } catch( IllegalAccessException e ) {
+            throw new JSONException( currentPath + ":  Could not access the ObjectFactory of " + descriptor.getName(), e );
+        }
+        if( factory == null || value == null || hasPathFactory() ) return bind( value, targetType );
+        jsonStack.add( value );
+        try {
+            return factory.instantiate( this, value, targetType, getTargetClass( targetType ) );
+        } finally {
+            jsonStack.removeLast();
+        }
+    }
+
     public JSONException cannotConvertValueToTargetType(Object value, Class targetType) {
         return new JSONException( String.format("%s:  Can not convert %s into %s", currentPath, value.getClass().getName(), targetType.getName() ) );
     }
@@ -209,7 +291,7 @@ public class ObjectBinder {
 
 
     private Class findClassName( Object map, Class targetType ) throws JSONException {
-        if( !pathFactories.containsKey( currentPath ) ) {
+        if( !hasPathFactory() ) {
             Class mostSpecificType = useMostSpecific( map instanceof Map ? findClassInMap( (Map)map, null ) : null, targetType );
             if( mostSpecificType == null ) {
                 return map.getClass();
@@ -235,34 +317,48 @@ public class ObjectBinder {
 
     protected Class findClassInMap( Map map, Class override ) {
         if( override == null ) {
-            String classname = (String)map.get("class");
+            Object hint = map.get("class");
             try {
-                if( classname != null ) {
-                    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
-                    if( classLoader != null ) {
-                        return classLoader.loadClass(classname);
-                    } else {
-                        return Class.forName( classname );
-                    }
-                }
-                return null;
+                return hint != null ? typeRegistry.resolve( hint ) : null;
             } catch( ClassNotFoundException e ) {
-                throw new JSONException( String.format( "%s:  Could not load %s", currentPath, classname ), e );
+                throw new JSONException( String.format( "%s:  %s", currentPath, e.getMessage() ), e );
             }
         } else {
             return override;
         }
     }
 
+    /**
+     * @param clazz the class a value at the current path would be bound into.
+     * @return the ObjectFactory that binds it, including any factory registered for the current path.
+     */
+    public ObjectFactory findFactory(Class clazz) {
+        return findFactoryFor( clazz );
+    }
+
     private ObjectFactory findFactoryFor(Class targetType) {
-        ObjectFactory factory = pathFactories.get( currentPath );
+        ObjectFactory factory = findFactoryAtPath( currentPath );
         if( factory == null ) {
-            if( targetType != null && targetType.isArray() ) return factories.get(Array.class);
-            return findFactoryByTargetClass(targetType);
+            if( targetType == null ) return findFactoryByTargetClass( null );
+            factory = resolvedFactories.get( targetType );
+            if( factory == null ) {
+                factory = targetType.isArray() ? factories.get(Array.class) : findFactoryByTargetClass(targetType);
+                resolvedFactories.put( targetType, factory != null ? factory : NO_FACTORY );
+            }
+            return factory != NO_FACTORY ? factory : null;
         }
         return factory;
     }
 
+    private boolean hasPathFactory() {
+        return findFactoryAtPath( currentPath ) != null;
+    }
+
+    private ObjectFactory findFactoryAtPath(Path path) {
+        if( rootFactory != null && path.length() == 0 ) return rootFactory;
+        return pathFactories.get( path.getPath() );
+    }
+
     private ObjectFactory findFactoryByTargetClass(Class targetType) {
         ObjectFactory factory;
         factory = factories.get(targetType);
@@ -282,36 +378,20 @@ public class ObjectBinder {
 
     protected Object instantiate( Class clazz ) {
         try {
-            Constructor constructor = clazz.getDeclaredConstructor();
-            constructor.setAccessible( true );
-            return constructor.newInstance();
+            return Instantiator.forClass( clazz ).newInstance();
         } catch (InstantiationException e) {
-            throw new JSONException(currentPath + ":There was an exception trying to instantiate an instance of " + clazz.getName(), e );
+            throw new JSONException(currentPath + ":There was an exception trying to instantiate an instance of " + clazz.getName() + describe( e ), e );
         } catch (IllegalAccessException e) {
             throw new JSONException(currentPath + ":There was an exception trying to instantiate an instance of " + clazz.getName(), e );
         } catch (InvocationTargetException e) {
             throw new JSONException(currentPath + ":There was an exception trying to instantiate an instance of " + clazz.getName(), e );
         } catch (NoSuchMethodException e) {
-            throw new JSONException(currentPath + ": " + clazz.getName() + " lacks a no argument constructor.  Flexjson will instantiate any protected, private, or public no-arg constructor.", e );
-        }
-    }
-
-    private boolean containsFieldInJson( Map map, BeanProperty property ) {
-        return map.containsKey( property.getJsonName() ) || map.containsKey( upperCase(property.getJsonName()) );
-    }
-
-    private Object findFieldInJson( Map map, BeanProperty property ) {
-        Object value = map.get( property.getJsonName() );
-        if( value == null ) {
-            String field = property.getJsonName();
-            value = map.get( upperCase(field) );
+            throw new JSONException(currentPath + ": " + e.getMessage(), e );
         }
-
-        return value;
     }
 
-    private String upperCase(String field) {
-        return Character.toUpperCase( field.charAt(0) ) + field.substring(1);
+    private String describe( Exception e ) {
+        return e.getMessage() != null ? ".  " + e.getMessage() : "";
     }
 
     public Object getTarget() {
@@ -348,7 +428,7 @@ public class ObjectBinder {
     }
 
     public Class findClassAtPath(Path currentPath) throws ClassNotFoundException {
-        ObjectFactory factory = pathFactories.get( currentPath );
+        ObjectFactory factory = findFactoryAtPath( currentPath );
         if( factory instanceof ClassLocatorObjectFactory ) {
             return ((ClassLocatorObjectFactory)factory).getLocator().locate( this, currentPath );
         } else {
@@ -0,0 +1,44 @@
+package flexjson;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Map implementation json objects are parsed into.  Set it with
+ * {@link JSONDeserializer#objectMapType(ObjectMapType)}.
+ */
+public enum ObjectMapType {
+
+    /**
+     * A HashMap.  This is the default.
+     */
+    HASH_MAP {
+        Map<String, Object> create() {
+            return new HashMap<String, Object>();
+        }
+    },
+
+    /**
+     * A LinkedHashMap, which keeps the keys in the order they appear in the json.
+     */
+    LINKED_HASH_MAP {
+        Map<String, Object> create() {
+            return new LinkedHashMap<String, Object>();
+        }
+    },
+
+    /**
+     * A map that keeps keys and values in a pair of arrays in the order they appear in the json.  Small
+     * objects are searched linearly and only objects with more than a handful of keys get a hash table,
+     * so it needs far less memory than a HashMap and is quicker to fill for the small objects most
+     * documents are made of.
+     */
+    COMPACT {
+        Map<String, Object> create() {
+            return new CompactMap();
+        }
+    };
+
+    abstract Map<String, Object> create();
+}
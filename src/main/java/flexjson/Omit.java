@@ -0,0 +1,75 @@
+package flexjson;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Values a property is left out of the json for, so neither its name nor its value is written.  The
+ * serializer's settings come from {@link JSONSerializer#excludeNulls(boolean)},
+ * {@link JSONSerializer#excludeEmpty(boolean)} and {@link JSONSerializer#excludeDefaults(boolean)}, and
+ * a property can replace them with {@link JSON#omit()}.
+ */
+public enum Omit {
+
+    /**
+     * Leave the property out when it's null.
+     */
+    NULLS,
+
+    /**
+     * Leave the property out when it's an empty String, Collection, Map or array.
+     */
+    EMPTY,
+
+    /**
+     * Leave the property out when it holds the default value of its declared type: null for objects,
+     * and zero, false or '\u0000' for primitives.
+     */
+    DEFAULTS,
+
+    /**
+     * Always write the property, whatever the serializer leaves out.
+     */
+    NEVER;
+
+    static int mask(Omit... omissions) {
+        int mask = 0;
+        for( Omit omission : omissions ) {
+            mask |= 1 << omission.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * @param mask the bits of the omissions that apply.
+     * @param type the declared type of the property.
+     * @param value the property's value.
+     * @return true if the property is left out.
+     */
+    static boolean isOmitted(int mask, Class type, Object value) {
+        if( mask == 0 || (mask & (1 << NEVER.ordinal())) != 0 ) return false;
+        if( value == null ) {
+            return (mask & ((1 << NULLS.ordinal()) | (1 << DEFAULTS.ordinal()))) != 0;
+        }
+        if( (mask & (1 << EMPTY.ordinal())) != 0 && isEmpty( value ) ) return true;
+        return (mask & (1 << DEFAULTS.ordinal())) != 0 && type != null && type.isPrimitive() && isDefault( value );
+    }
+
+    private static boolean isEmpty(Object value) {
+        if( value instanceof String ) return ((String)value).length() == 0;
+        if( value instanceof Collection ) return ((Collection)value).isEmpty();
+        if( value instanceof Map ) return ((Map)value).isEmpty();
+        return value.getClass().isArray() && Array.getLength( value ) == 0;
+    }
+
+    private static boolean isDefault(Object value) {
+        if( value instanceof Boolean ) return !((Boolean)value);
+        if( value instanceof Character ) return (Character)value == '\u0000';
+        if( value instanceof Double || value instanceof Float ) {
+            // -0.0 isn't the default and is written differently, so compare the bits
+            return Double.doubleToRawLongBits( ((Number)value).doubleValue() ) == 0L;
+        }
+        return value instanceof Number && ((Number)value).longValue() == 0L;
+    }
+}
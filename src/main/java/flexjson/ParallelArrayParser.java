@@ -0,0 +1,182 @@
+package flexjson;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Parses a large top-level json array on several threads.  A quick scan that only tracks quotes,
+ * escapes and nesting finds commas between elements, the array is cut at those commas into segments
+ * of roughly equal length, and each segment is parsed on the executor as an array of its own.  The
+ * parts are joined back together in order so the result is the same List a {@link JSONTokener} returns.
+ */
+final class ParallelArrayParser {
+
+    // inputs with less than this many characters per segment aren't worth splitting
+    static final int MIN_SEGMENT = 16 * 1024;
+
+    private final ExecutorService executor;
+    private final int segments;
+
+    ParallelArrayParser(ExecutorService executor, int segments) {
+        this.executor = executor;
+        this.segments = segments;
+    }
+
+    /**
+     * @param text the json input.
+     * @param deserializer creates the tokeners segments are parsed with.
+     * @return the elements of the array, or null if the input isn't a top-level array big enough to
+     * split, or is followed by text a strict parse rejects, and should be parsed the normal way.
+     */
+    List<Object> parse(final CharSequence text, final CompiledDeserializer<?> deserializer) {
+        int length = text.length();
+        int count = Math.min(segments, length / MIN_SEGMENT);
+        int start = 0;
+        while (start < length && text.charAt(start) <= ' ') start++;
+        if (count < 2 || start == length || text.charAt(start) != '[') return null;
+
+        int[] cuts = new int[count + 1];
+        int cut = 0;
+        cuts[cut++] = start;
+        int target = start + (length - start) / count;
+        int depth = 0;
+        char quote = 0;
+        char previous = '[';
+        int end = -1;
+        for (int i = start; i < length && end < 0; i++) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                    previous = c;
+                }
+                continue;
+            }
+            switch (c) {
+                case '"':
+                    quote = c;
+                    break;
+                case '\'':
+                    // a single quote only starts a string at the beginning of a value
+                    if ("[{(,:;=".indexOf(previous) >= 0) quote = c;
+                    break;
+                case '[':
+                case '{':
+                case '(':
+                    depth++;
+                    break;
+                case ']':
+                case '}':
+                case ')':
+                    if (--depth == 0) end = i;
+                    break;
+                case ',':
+                    // cut after a whole element, never where a missing element stands for a null
+                    if (depth == 1 && i >= target && cut < count && previous != ',' && previous != '[') {
+                        cuts[cut++] = i;
+                        target = start + (int) ((long) (length - start) * cut / count);
+                    }
+                    break;
+            }
+            if (c > ' ') previous = c;
+        }
+        if (end < 0 || cut < 2) return null;
+        if (deserializer.isStrict()) {
+            // leave anything but RFC 8259 whitespace around the array to the normal parse, which rejects it
+            for (int i = 0; i < length; i++) {
+                if (i == start) i = end + 1;
+                if (i < length && !isStrictWhitespace(text.charAt(i))) return null;
+            }
+        }
+
+        List<Future<List<Object>>> parts = new ArrayList<Future<List<Object>>>(cut);
+        for (int i = 0; i < cut; i++) {
+            final int from = cuts[i] + 1;
+            final int to = i + 1 < cut ? cuts[i + 1] : end;
+            parts.add(executor.submit(new Callable<List<Object>>() {
+                public List<Object> call() {
+                    return deserializer.tokener(new SegmentReader(text, from, to)).parseArray();
+                }
+            }));
+        }
+
+        List<Object> result = null;
+        try {
+            for (Future<List<Object>> part : parts) {
+                List<Object> elements = part.get();
+                if (result == null) {
+                    result = new ArrayList<Object>(elements.size() * cut + 16);
+                }
+                result.addAll(elements);
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JSONException("Interrupted while parsing json in parallel", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new JSONException(e.getCause());
+        } finally {
+            for (Future<List<Object>> part : parts) {
+                part.cancel(true);
+            }
+        }
+    }
+
+    private static boolean isStrictWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    /**
+     * Reads a range of the input as if it was wrapped in brackets without copying it.
+     */
+    private static final class SegmentReader extends Reader {
+
+        private final CharSequence text;
+        private final int to;
+        private int position;
+        private boolean opened;
+        private boolean closed;
+
+        SegmentReader(CharSequence text, int from, int to) {
+            this.text = text;
+            this.position = from;
+            this.to = to;
+        }
+
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (closed) return -1;
+            int count = 0;
+            if (!opened && count < length) {
+                buffer[offset + count++] = '[';
+                opened = true;
+            }
+            int n = Math.min(length - count, to - position);
+            if (n > 0) {
+                if (text instanceof String) {
+                    ((String) text).getChars(position, position + n, buffer, offset + count);
+                } else {
+                    for (int i = 0; i < n; i++) buffer[offset + count + i] = text.charAt(position + i);
+                }
+                position += n;
+                count += n;
+            }
+            if (position == to && count < length) {
+                buffer[offset + count++] = ']';
+                closed = true;
+            }
+            return count;
+        }
+
+        public void close() {
+        }
+    }
+}
@@ -82,4 +82,25 @@ public class Path {
     public static Path parse(String path) {
         return path != null ? new Path( path.split("\\." ) ) : new Path();
     }
+
+    /**
+     * Parses a JSON Pointer (RFC 6901) such as <code>/data/items/0</code> into a Path.  The
+     * escapes ~1 and ~0 are turned back into / and ~.  The empty pointer is the root.
+     *
+     * @param pointer a JSON Pointer.
+     * @return the Path the pointer refers to.
+     */
+    public static Path parsePointer(String pointer) {
+        Path path = new Path();
+        if (pointer == null || pointer.length() == 0) {
+            return path;
+        }
+        if (pointer.charAt(0) != '/') {
+            throw new JSONException("JSON Pointer must start with '/': " + pointer);
+        }
+        for (String token : pointer.substring(1).split("/", -1)) {
+            path.enqueue(token.indexOf('~') >= 0 ? token.replace("~1", "/").replace("~0", "~") : token);
+        }
+        return path;
+    }
 }
@@ -0,0 +1,53 @@
+package flexjson;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the ObjectFactories registered for paths as a tree of path segments.  Finding the factory
+ * for the current path walks the segments from the root and stops at the first one nothing was
+ * registered under, so most lookups end after a segment or two and nothing is hashed or allocated
+ * for the whole path.  Once built a trie is only read so it can be shared between binders.
+ */
+final class PathTrie {
+
+    private final Map<String,PathTrie> children = new HashMap<String,PathTrie>();
+    private ObjectFactory factory;
+
+    void put( List<String> path, ObjectFactory factory ) {
+        PathTrie node = this;
+        for( String segment : path ) {
+            PathTrie child = node.children.get( segment );
+            if( child == null ) {
+                child = new PathTrie();
+                node.children.put( segment, child );
+            }
+            node = child;
+        }
+        node.factory = factory;
+    }
+
+    ObjectFactory get( List<String> path ) {
+        PathTrie node = this;
+        if( !path.isEmpty() ) {
+            if( children.isEmpty() ) return null;
+            Iterator<String> segments = path.iterator();
+            while( segments.hasNext() ) {
+                node = node.children.get( segments.next() );
+                if( node == null ) return null;
+            }
+        }
+        return node.factory;
+    }
+
+    PathTrie copy() {
+        PathTrie copy = new PathTrie();
+        copy.factory = factory;
+        for( Map.Entry<String,PathTrie> child : children.entrySet() ) {
+            copy.children.put( child.getKey(), child.getValue().copy() );
+        }
+        return copy;
+    }
+}
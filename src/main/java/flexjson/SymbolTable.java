@@ -0,0 +1,99 @@
+package flexjson;
+
+/**
+ * <p>
+ * Canonicalizes object keys while they are parsed.  Documents tend to repeat the same handful of
+ * keys over and over, especially arrays of objects, so instead of allocating a new String for every
+ * key the parser looks up the characters it just read and reuses the String it created the last time
+ * it saw them.  Every {@link JSONTokener} has its own table by default which shares keys within a
+ * single document.  Create a SymbolTable yourself and hand it to
+ * {@link JSONDeserializer#symbolTable(SymbolTable)} to share keys across documents.
+ * </p>
+ *
+ * <p>
+ * The table has a fixed capacity and only looks at a few slots for each key.  Keys that are too long,
+ * or that don't find a free slot, are simply returned as new Strings without being remembered, so
+ * input with lots of distinct keys or deliberately colliding keys can't make the table grow or slow it
+ * down.  A SymbolTable can be shared between threads.  Entries are immutable and published by a single
+ * array write, so the worst a race can do is lose an entry that will be added again later.
+ * </p>
+ */
+public class SymbolTable {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_LENGTH = 64;
+
+    private static final int MAX_PROBES = 8;
+
+    private final Symbol[] symbols;
+    private final int mask;
+    private final int maxLength;
+
+    public SymbolTable() {
+        this( DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH );
+    }
+
+    /**
+     * @param capacity the maximum number of keys remembered.  It's rounded up to a power of two.
+     * @param maxLength keys longer than this many characters aren't remembered.
+     */
+    public SymbolTable( int capacity, int maxLength ) {
+        int size = MAX_PROBES;
+        while( size < capacity ) {
+            size <<= 1;
+        }
+        this.symbols = new Symbol[size];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Returns the canonical String for the given characters, creating it if it hasn't been seen.
+     *
+     * @param chars the buffer holding the key.
+     * @param offset where the key starts in the buffer.
+     * @param length the number of characters in the key.
+     * @return a String equal to the given characters.
+     */
+    public String lookup( char[] chars, int offset, int length ) {
+        if( length > maxLength ) {
+            return new String( chars, offset, length );
+        }
+        int hash = 0;
+        for( int i = offset; i < offset + length; i++ ) {
+            hash = 31 * hash + chars[i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        for( int probe = 0; probe < MAX_PROBES; probe++ ) {
+            Symbol symbol = symbols[slot];
+            if( symbol == null ) {
+                String value = new String( chars, offset, length );
+                symbols[slot] = new Symbol( hash, value );
+                return value;
+            }
+            if( symbol.hash == hash && symbol.matches( chars, offset, length ) ) {
+                return symbol.value;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return new String( chars, offset, length );
+    }
+
+    private static final class Symbol {
+        private final int hash;
+        private final String value;
+
+        Symbol( int hash, String value ) {
+            this.hash = hash;
+            this.value = value;
+        }
+
+        boolean matches( char[] chars, int offset, int length ) {
+            if( value.length() != length ) return false;
+            for( int i = 0; i < length; i++ ) {
+                if( value.charAt(i) != chars[offset + i] ) return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package flexjson;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>
+ * Maps classes to the type hints written into the "class" property of serialized objects, and maps
+ * those hints back to classes when deserializing.  By default a hint is the fully qualified class
+ * name, but a class can be registered under a short alias or a numeric id instead:
+ * </p>
+ *
+ * <pre>
+ * TypeRegistry types = new TypeRegistry()
+ *     .register( "person", Person.class )
+ *     .register( 2, Address.class );
+ *
+ * String json = new JSONSerializer().typeRegistry( types ).serialize( person );
+ * Person p = new JSONDeserializer&lt;Person&gt;().typeRegistry( types ).deserialize( json );
+ * </pre>
+ *
+ * <p>
+ * Share the same registry, or one with the same registrations, between the serializer and the
+ * deserializer.  Classes resolved from a hint are remembered so the class loader is only asked once
+ * per name.  A {@link #restricted(boolean) restricted} registry only resolves hints for registered
+ * classes so input can't make the deserializer load or instantiate arbitrary classes.  A registry can
+ * be shared between threads.
+ * </p>
+ */
+public class TypeRegistry {
+
+    private final ConcurrentMap<Class,Object> hints = new ConcurrentHashMap<Class,Object>();
+    private final ConcurrentMap<String,Class> aliases = new ConcurrentHashMap<String,Class>();
+    private final ConcurrentMap<Integer,Class> ids = new ConcurrentHashMap<Integer,Class>();
+    private final ConcurrentMap<String,Class> loaded = new ConcurrentHashMap<String,Class>();
+    private volatile boolean restricted;
+
+    /**
+     * Registers a class under its fully qualified name.  This only matters for restricted registries
+     * where it allows the class without changing how it's written.
+     *
+     * @param classes the classes to allow.
+     * @return this instance for method chaining.
+     */
+    public TypeRegistry register( Class... classes ) {
+        for( Class clazz : classes ) {
+            register( clazz.getName(), clazz );
+        }
+        return this;
+    }
+
+    /**
+     * Registers a class under a short alias that's written instead of the class name.
+     *
+     * @param alias the hint written for the class.
+     * @param clazz the class.
+     * @return this instance for method chaining.
+     */
+    public TypeRegistry register( String alias, Class clazz ) {
+        aliases.put( alias, clazz );
+        hints.put( clazz, alias );
+        return this;
+    }
+
+    /**
+     * Registers a class under a numeric id that's written as a json number instead of the class name.
+     *
+     * @param id the hint written for the class.
+     * @param clazz the class.
+     * @return this instance for method chaining.
+     */
+    public TypeRegistry register( int id, Class clazz ) {
+        ids.put( id, clazz );
+        hints.put( clazz, id );
+        return this;
+    }
+
+    /**
+     * @param restricted true to only resolve hints for registered classes.
+     * @return this instance for method chaining.
+     */
+    public TypeRegistry restricted( boolean restricted ) {
+        this.restricted = restricted;
+        return this;
+    }
+
+    public boolean isRestricted() {
+        return restricted;
+    }
+
+    /**
+     * @param clazz the class of an object being serialized.
+     * @return the hint to write for the class: an Integer id, a String alias, or the class name.
+     */
+    public Object getHint( Class clazz ) {
+        Object hint = hints.get( clazz );
+        return hint != null ? hint : clazz.getName();
+    }
+
+    /**
+     * @param hint the value of a "class" property read from json.
+     * @return the class the hint refers to.
+     * @throws ClassNotFoundException if the hint doesn't name a class, or names one a restricted
+     * registry doesn't allow.  The message says which.
+     */
+    public Class resolve( Object hint ) throws ClassNotFoundException {
+        Class clazz;
+        if( hint instanceof Number ) {
+            clazz = ids.get( ((Number)hint).intValue() );
+        } else {
+            String name = hint.toString();
+            clazz = aliases.get( name );
+            if( clazz == null && !restricted ) {
+                clazz = loaded.get( name );
+                if( clazz == null ) {
+                    clazz = load( name );
+                    loaded.put( name, clazz );
+                }
+            }
+        }
+        if( clazz == null ) {
+            throw new ClassNotFoundException( hint + (hint instanceof Number ? " is not a registered type id" : " is not a registered type") );
+        }
+        return clazz;
+    }
+
+    private Class load( String name ) throws ClassNotFoundException {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        try {
+            if( classLoader != null ) {
+                return classLoader.loadClass( name );
+            } else {
+                return Class.forName( name );
+            }
+        } catch( ClassNotFoundException e ) {
+            // class loaders word their messages differently, so say what went wrong here
+            throw new ClassNotFoundException( "Could not load " + name, e );
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package flexjson.factories;
 
+import flexjson.LazyJsonArray;
 import flexjson.ObjectFactory;
 import flexjson.ObjectBinder;
 import flexjson.JSONException;
@@ -16,6 +17,9 @@ public class ArrayObjectFactory implements ObjectFactory {
         try {
             Class memberClass = targetClass.getComponentType() != null ? targetClass.getComponentType() : context.findClassAtPath( context.getCurrentPath() );
             if( memberClass == null ) throw new JSONException("Missing concrete class for array.  You might require a use() method.");
+            if( memberClass.isPrimitive() && isBuiltIn( context.findFactory( memberClass ), memberClass ) ) {
+                return bindPrimitives( context, list, memberClass );
+            }
             Object array = Array.newInstance( memberClass, list.size() );
             for( int i = 0; i < list.size(); i++ ) {
                 Object v = context.bind( list.get(i), memberClass );
@@ -28,4 +32,106 @@ public class ArrayObjectFactory implements ObjectFactory {
             context.getCurrentPath().pop();
         }
     }
+
+    /**
+     * Fills arrays of primitives without boxing each element or going through context.bind().  Numbers
+     * in a lazily parsed array are read straight out of the input.  Anything that isn't a number, or a
+     * boolean for boolean[], is bound the regular way.
+     */
+    private Object bindPrimitives(ObjectBinder context, List list, Class memberClass) {
+        int size = list.size();
+        LazyJsonArray lazy = list instanceof LazyJsonArray ? (LazyJsonArray)list : null;
+        if( memberClass == int.class ) {
+            int[] array = new int[size];
+            for( int i = 0; i < size; i++ ) {
+                if( lazy != null && lazy.isNumber( i ) ) {
+                    array[i] = lazy.getInt( i );
+                } else {
+                    Object v = list.get( i );
+                    array[i] = v instanceof Number ? ((Number)v).intValue() : (Integer)bind( context, v, memberClass );
+                }
+            }
+            return array;
+        } else if( memberClass == long.class ) {
+            long[] array = new long[size];
+            for( int i = 0; i < size; i++ ) {
+                if( lazy != null && lazy.isNumber( i ) ) {
+                    array[i] = lazy.getLong( i );
+                } else {
+                    Object v = list.get( i );
+                    array[i] = v instanceof Number ? ((Number)v).longValue() : (Long)bind( context, v, memberClass );
+                }
+            }
+            return array;
+        } else if( memberClass == double.class ) {
+            double[] array = new double[size];
+            for( int i = 0; i < size; i++ ) {
+                if( lazy != null && lazy.isNumber( i ) ) {
+                    array[i] = lazy.getDouble( i );
+                } else {
+                    Object v = list.get( i );
+                    array[i] = v instanceof Number ? ((Number)v).doubleValue() : (Double)bind( context, v, memberClass );
+                }
+            }
+            return array;
+        } else if( memberClass == float.class ) {
+            float[] array = new float[size];
+            for( int i = 0; i < size; i++ ) {
+                Object v = list.get( i );
+                array[i] = v instanceof Number ? ((Number)v).floatValue() : (Float)bind( context, v, memberClass );
+            }
+            return array;
+        } else if( memberClass == short.class ) {
+            short[] array = new short[size];
+            for( int i = 0; i < size; i++ ) {
+                if( lazy != null && lazy.isNumber( i ) ) {
+                    array[i] = (short)lazy.getInt( i );
+                } else {
+                    Object v = list.get( i );
+                    array[i] = v instanceof Number ? ((Number)v).shortValue() : (Short)bind( context, v, memberClass );
+                }
+            }
+            return array;
+        } else if( memberClass == byte.class ) {
+            byte[] array = new byte[size];
+            for( int i = 0; i < size; i++ ) {
+                Object v = list.get( i );
+                array[i] = v instanceof Number ? ((Number)v).byteValue() : (Byte)bind( context, v, memberClass );
+            }
+            return array;
+        } else if( memberClass == boolean.class ) {
+            boolean[] array = new boolean[size];
+            for( int i = 0; i < size; i++ ) {
+                Object v = list.get( i );
+                array[i] = v instanceof Boolean ? (Boolean)v : (Boolean)bind( context, v, memberClass );
+            }
+            return array;
+        } else {
+            Object array = Array.newInstance( memberClass, size );
+            for( int i = 0; i < size; i++ ) {
+                Array.set( array, i, context.bind( list.get(i), memberClass ) );
+            }
+            return array;
+        }
+    }
+
+    private Object bind(ObjectBinder context, Object value, Class memberClass) {
+        Object bound = context.bind( value, memberClass );
+        if( bound == null ) {
+            throw new JSONException( String.format("%s: Can not put null into an array of %s", context.getCurrentPath(), memberClass.getName() ) );
+        }
+        return bound;
+    }
+
+    private boolean isBuiltIn(ObjectFactory factory, Class memberClass) {
+        Class type = factory != null ? factory.getClass() : null;
+        if( memberClass == int.class ) return type == IntegerObjectFactory.class;
+        if( memberClass == long.class ) return type == LongObjectFactory.class;
+        if( memberClass == double.class ) return type == DoubleObjectFactory.class;
+        if( memberClass == float.class ) return type == FloatObjectFactory.class;
+        if( memberClass == short.class ) return type == ShortObjectFactory.class;
+        if( memberClass == byte.class ) return type == ByteObjectFactory.class;
+        if( memberClass == boolean.class ) return type == BooleanObjectFactory.class;
+        return false;
+    }
 }
@@ -4,9 +4,9 @@ import flexjson.ObjectFactory;
 import flexjson.ClassLocator;
 import flexjson.ObjectBinder;
 import flexjson.JSONException;
+import flexjson.Instantiator;
 
 import java.lang.reflect.Type;
-import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
 import java.util.Map;
@@ -47,19 +47,16 @@ public class ClassLocatorObjectFactory implements ObjectFactory {
         } catch (IllegalAccessException e) {
             throw new JSONException( String.format("%s: Could not instantiate class %s", context.getCurrentPath(), clazz.getName() ), e );
         } catch (InstantiationException e) {
-            throw new JSONException( String.format("%s: Problem while instantiating class %s", context.getCurrentPath(), clazz.getName() ), e );
+            throw new JSONException( String.format("%s: Problem while instantiating class %s%s", context.getCurrentPath(), clazz.getName(), e.getMessage() != null ? ".  " + e.getMessage() : "" ), e );
         } catch (NoSuchMethodException e) {
-            throw new JSONException( String.format("%s: Could not find a no-arg constructor for %s", context.getCurrentPath(), clazz.getName() ), e );
+            throw new JSONException( String.format("%s: Could not find a no-arg constructor for %s.  %s", context.getCurrentPath(), clazz.getName(), e.getMessage() ), e );
         } catch (InvocationTargetException e) {
             throw new JSONException( String.format("%s: Problem while invoking the no-arg constructor for %s", context.getCurrentPath(), clazz.getName() ), e );
         }
     }
 
     private Object createTargetObject(Class clazz) throws NoSuchMethodException, InstantiationException, IllegalAccessException, InvocationTargetException {
-        Constructor constructor = clazz.getDeclaredConstructor();
-        constructor.setAccessible(true);
-        Object target = constructor.newInstance();
-        return target;
+        return Instantiator.forClass( clazz ).newInstance();
     }
 
     public ClassLocator getLocator() {
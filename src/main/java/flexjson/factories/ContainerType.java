@@ -0,0 +1,148 @@
+package flexjson.factories;
+
+import flexjson.JSONException;
+import flexjson.ObjectBinder;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Works out which Collection or Map class a declared type should be bound into.  Factories resolve a
+ * declared type once and keep the answer, so binding the same property again doesn't look at the
+ * type's hierarchy or search for constructors.  A ContainerType is one of:
+ *
+ * <ul>
+ * <li>the factory's default class, which the factory creates itself,</li>
+ * <li>an EnumSet or EnumMap when the elements or keys are declared as an enum,</li>
+ * <li>a concrete class that was declared, like LinkedHashMap or TreeMap, created through its constructor,</li>
+ * <li>an implementation that fits an interface the default class doesn't, like a TreeMap for a SortedMap.</li>
+ * </ul>
+ */
+final class ContainerType {
+
+    private static final ContainerType DEFAULT = new ContainerType( null, null, false );
+
+    private final Class enumType;
+    private final Constructor constructor;
+    private final boolean hashed;
+
+    private ContainerType(Class enumType, Constructor constructor, boolean hashed) {
+        this.enumType = enumType;
+        this.constructor = constructor;
+        this.hashed = hashed;
+    }
+
+    private static ContainerType forEnum(Class enumType, boolean map) {
+        return new ContainerType( enumType, null, map );
+    }
+
+    /**
+     * @param cache the factory's resolved types.
+     * @param targetType the declared type being bound into.
+     * @param defaultClass the class the factory creates when nothing more specific is declared.
+     * @param enumContainer EnumSet or EnumMap if the factory can use them, otherwise null.
+     * @param implementations classes to try, in order, when the declared type is an interface or abstract
+     * class the default class doesn't implement.
+     */
+    static ContainerType resolve(ConcurrentMap<Type,ContainerType> cache, Type targetType, Class defaultClass, Class enumContainer, Class... implementations) {
+        if( targetType == null ) return DEFAULT;
+        ContainerType type = cache.get( targetType );
+        if( type == null ) {
+            type = create( targetType, defaultClass, enumContainer, implementations );
+            cache.putIfAbsent( targetType, type );
+        }
+        return type;
+    }
+
+    static ConcurrentMap<Type,ContainerType> newCache() {
+        return new ConcurrentHashMap<Type,ContainerType>();
+    }
+
+    /**
+     * @return the initial capacity a hash based collection needs to hold size elements without growing.
+     */
+    static int capacity(int size) {
+        return size < 12 ? 16 : (int)(size / 0.75f) + 1;
+    }
+
+    /**
+     * @return a new instance able to hold size elements, or null if the factory should create its
+     * default class.
+     */
+    Object newInstance(ObjectBinder context, int size) {
+        if( enumType != null ) {
+            return hashed ? new EnumMap( enumType ) : EnumSet.noneOf( enumType );
+        } else if( constructor == null ) {
+            return null;
+        }
+        try {
+            if( constructor.getParameterTypes().length == 0 ) {
+                return constructor.newInstance();
+            } else {
+                return constructor.newInstance( hashed ? capacity( size ) : size );
+            }
+        } catch( InstantiationException e ) {
+            throw new JSONException( String.format( "%s: Could not instantiate %s", context.getCurrentPath(), constructor.getDeclaringClass().getName() ), e );
+        } catch( IllegalAccessException e ) {
+            throw new JSONException( String.format( "%s: Could not access the constructor of %s", context.getCurrentPath(), constructor.getDeclaringClass().getName() ), e );
+        } catch( InvocationTargetException e ) {
+            throw new JSONException( String.format( "%s: Exception while creating %s", context.getCurrentPath(), constructor.getDeclaringClass().getName() ), e.getCause() );
+        }
+    }
+
+    private static ContainerType create(Type targetType, Class defaultClass, Class enumContainer, Class[] implementations) {
+        Class raw = null;
+        Type argument = null;
+        if( targetType instanceof Class ) {
+            raw = (Class)targetType;
+        } else if( targetType instanceof ParameterizedType ) {
+            ParameterizedType ptype = (ParameterizedType)targetType;
+            raw = ptype.getRawType() instanceof Class ? (Class)ptype.getRawType() : null;
+            argument = ptype.getActualTypeArguments()[0];
+        }
+        Class container = Map.class.isAssignableFrom( defaultClass ) ? Map.class : Collection.class;
+        if( raw == null || raw == defaultClass || !container.isAssignableFrom( raw ) ) return DEFAULT;
+
+        if( enumContainer != null && argument instanceof Class && ((Class)argument).isEnum() && raw.isAssignableFrom( enumContainer ) ) {
+            return forEnum( (Class)argument, container == Map.class );
+        }
+
+        if( raw.isInterface() || Modifier.isAbstract( raw.getModifiers() ) ) {
+            if( raw.isAssignableFrom( defaultClass ) ) return DEFAULT;
+            for( Class implementation : implementations ) {
+                if( raw.isAssignableFrom( implementation ) ) return forClass( implementation );
+            }
+            return DEFAULT;
+        }
+        return forClass( raw );
+    }
+
+    private static ContainerType forClass(Class clazz) {
+        // only the java.util classes are known to take their initial capacity as an int
+        if( clazz.getPackage() != null && "java.util".equals( clazz.getPackage().getName() ) ) {
+            try {
+                boolean hashed = Map.class.isAssignableFrom( clazz ) || Set.class.isAssignableFrom( clazz );
+                return new ContainerType( null, clazz.getConstructor( int.class ), hashed );
+            } catch( NoSuchMethodException e ) {
+                // fall through to the no-arg constructor
+            }
+        }
+        try {
+            Constructor constructor = clazz.getDeclaredConstructor();
+            constructor.setAccessible( true );
+            return new ContainerType( null, constructor, false );
+        } catch( NoSuchMethodException e ) {
+            return DEFAULT;
+        }
+    }
+}
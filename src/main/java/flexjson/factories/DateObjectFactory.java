@@ -3,17 +3,24 @@ package flexjson.factories;
 import flexjson.ObjectFactory;
 import flexjson.JSONException;
 import flexjson.ObjectBinder;
+import flexjson.Instantiator;
+import flexjson.Iso8601;
+import flexjson.Path;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Type;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.text.ParseException;
+import java.text.ParsePosition;
 import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * DateObjectFactory instantiates java.lang.Date using a list of known java.text.DateFormat instances for json
@@ -30,14 +37,25 @@ import java.util.Date;
  * MM/dd/yy hh:mm:ss a
  * MM/dd/yy
  *
+ * A factory created with the default formats also recognizes ISO-8601 timestamps.  Ones like
+ * 2011-04-15T10:20:30.123Z are read before trying any of the patterns, other ISO-8601 forms only
+ * when none of the patterns match.  A pattern that read the whole of the last value at a path is
+ * tried first the next time, so a run of values in the same format each take a single attempt.  It's
+ * only used when it reads the whole of the new value too, otherwise the patterns are tried in order.
  */
 public class DateObjectFactory implements ObjectFactory {
 
     private static List<String> defaultFormats;
 
+    // Date subclasses mapped to their public long constructor, or to NO_LONG_CONSTRUCTOR
+    private static final ConcurrentMap<Class,Object> longConstructors = new ConcurrentHashMap<Class,Object>();
+    private static final Object NO_LONG_CONSTRUCTOR = new Object();
+
     protected List<String> dateFormats;
     protected boolean fromDefaults = false;
     protected ThreadLocal<List<DateFormat>> dateFormatters = new ThreadLocal<List<DateFormat>>();
+    private ThreadLocal<Memo> memos = new ThreadLocal<Memo>();
+    private static final int MAX_PATHS = 256;
 
     static {
         defaultFormats = new ArrayList<String>();
@@ -108,14 +126,19 @@ public class DateObjectFactory implements ObjectFactory {
             if( value instanceof Number ) {
                 return instantiateDate( (Class)targetType, ((Number)value).longValue(), context );
             } else {
-                for( DateFormat format : getDateFormats() ) {
-                    try {
-                        return format.parse( value.toString() );
-                    } catch (ParseException e) {
-                        // try next format
+                String text = value.toString();
+                // only a full timestamp with a 'T' is unambiguous enough to read before the patterns
+                boolean isoFirst = fromDefaults && text.length() > 10 && (text.charAt( 10 ) == 'T' || text.charAt( 10 ) == 't');
+                long millis = isoFirst ? Iso8601.parse( text ) : Iso8601.INVALID;
+                if( millis == Iso8601.INVALID ) {
+                    Date date = parse( text, context );
+                    if( date != null ) return date;
+                    millis = fromDefaults && !isoFirst ? Iso8601.parse( text ) : Iso8601.INVALID;
+                    if( millis == Iso8601.INVALID ) {
+                        throw new JSONException( String.format("%s:  Parsing date %s was not recognized as a date format", context.getCurrentPath(), value ) );
                     }
                 }
-                throw new JSONException( String.format("%s:  Parsing date %s was not recognized as a date format", context.getCurrentPath(), value ) );
+                return instantiateDate( targetType instanceof Class ? (Class)targetType : Date.class, millis, context );
             }
         } catch (IllegalAccessException e) {
             throw new JSONException( String.format("%s:  Error encountered trying to instantiate %s", context.getCurrentPath(), ((Class)targetType).getName() ), e);
@@ -127,14 +150,73 @@ public class DateObjectFactory implements ObjectFactory {
     }
 
     private Date instantiateDate( Class targetType, Long value, ObjectBinder context ) throws IllegalAccessException, InstantiationException, InvocationTargetException {
+        if( targetType == Date.class ) {
+            return new Date( value );
+        }
+        Object constructor = longConstructors.get( targetType );
+        if( constructor == null ) {
+            try {
+                constructor = targetType.getConstructor( Long.TYPE );
+            } catch (NoSuchMethodException e) {
+                constructor = NO_LONG_CONSTRUCTOR;
+            }
+            longConstructors.put( targetType, constructor );
+        }
+        if( constructor != NO_LONG_CONSTRUCTOR ) {
+            return (Date)((Constructor)constructor).newInstance( value );
+        }
         try {
-            Constructor constructor = targetType.getConstructor(Long.TYPE);
-            return (Date)constructor.newInstance( value );
-        } catch (NoSuchMethodException e) {
-            Date d = (Date)targetType.newInstance();
+            Date d = (Date)Instantiator.forClass( targetType ).newInstance();
             d.setTime( value );
             return d;
+        } catch (NoSuchMethodException e) {
+            throw new InstantiationException( e.getMessage() );
+        }
+    }
+
+    private Date parse( String text, ObjectBinder context ) {
+        List<DateFormat> formats = getDateFormats();
+        Memo memo = memos.get();
+        if( memo == null ) {
+            memo = new Memo();
+            memos.set( memo );
         }
+        Map<Path,Integer> matched = memo.matched;
+        ParsePosition position = memo.position;
+        // the binder's path changes as it goes, so it's only copied when a format is remembered for it
+        Path path = context.getCurrentPath();
+        Integer last = matched.get( path );
+        if( last != null && last < formats.size() ) {
+            // a shorter pattern could read just the start of a longer value, so only take a whole match
+            Date date = parse( formats.get( last ), text, position );
+            if( date != null && position.getIndex() == text.length() ) return date;
+        }
+        for( int i = 0; i < formats.size(); i++ ) {
+            Date date = parse( formats.get( i ), text, position );
+            if( date != null ) {
+                if( position.getIndex() == text.length() ) {
+                    if( last == null ? matched.size() < MAX_PATHS : last != i ) {
+                        matched.put( new Path( path.getPath().toArray( new String[path.length()] ) ), i );
+                    }
+                } else if( last != null ) {
+                    matched.remove( path );
+                }
+                return date;
+            }
+        }
+        return null;
+    }
+
+    // the index of the format that read the whole of the last value at each path, and a ParsePosition to reuse
+    private static final class Memo {
+        final Map<Path,Integer> matched = new HashMap<Path,Integer>();
+        final ParsePosition position = new ParsePosition( 0 );
+    }
+
+    private Date parse( DateFormat format, String text, ParsePosition position ) {
+        position.setIndex( 0 );
+        position.setErrorIndex( -1 );
+        return format.parse( text, position );
     }
 
     protected List<DateFormat> getDateFormats() {
@@ -5,16 +5,28 @@ import flexjson.ObjectFactory;
 
 import java.util.Collection;
 import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.ConcurrentMap;
 import java.lang.reflect.Type;
 
 public class ListObjectFactory implements ObjectFactory {
+
+    private final ConcurrentMap<Type,ContainerType> types = ContainerType.newCache();
+
     public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
         if( value instanceof Collection) {
-            return context.bindIntoCollection((Collection)value, new ArrayList(), targetType);
+            Collection source = (Collection)value;
+            return context.bindIntoCollection( source, createCollection( context, targetType, source.size() ), targetType );
         } else {
-            ArrayList<Object> set = new ArrayList<Object>();
-            set.add( context.bind( value ) );
-            return set;
+            Collection<Object> list = createCollection( context, targetType, 1 );
+            list.add( context.bind( value ) );
+            return list;
         }
     }
+
+    private Collection<Object> createCollection(ObjectBinder context, Type targetType, int size) {
+        // a Queue or Deque can't be an ArrayList
+        Collection<Object> collection = (Collection<Object>)ContainerType.resolve( types, targetType, ArrayList.class, null, LinkedList.class ).newInstance( context, size );
+        return collection != null ? collection : new ArrayList<Object>( size );
+    }
 }
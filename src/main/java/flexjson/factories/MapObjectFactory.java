@@ -5,24 +5,64 @@ import flexjson.ObjectBinder;
 
 import java.lang.reflect.Type;
 import java.lang.reflect.ParameterizedType;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class MapObjectFactory implements ObjectFactory {
+
+    private final ConcurrentMap<Type,ContainerType> types = ContainerType.newCache();
+    private final boolean legacyMapImpl = overridesLegacyMapImpl( getClass() );
+
     public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
+        Map input = (Map)value;
         if( targetType != null ) {
             if( targetType instanceof ParameterizedType ) {
                 ParameterizedType ptype = (ParameterizedType) targetType;
                 Type keyType = ptype.getActualTypeArguments()[0];
                 Type valueType = ptype.getActualTypeArguments()[1];
-                return context.bindIntoMap( (Map)value, createMapImpl(),
+                return context.bindIntoMap( input, createMapImpl( context, targetType, input.size() ),
                         keyType == Object.class ? null : keyType,
                         valueType == Object.class ? null : valueType );
             }
         }
-        return context.bindIntoMap( (Map)value, createMapImpl(), null, null );
+        return context.bindIntoMap( input, createMapImpl( context, targetType, input.size() ), null, null );
+    }
+
+    /**
+     * Creates the map json objects are bound into.  Declared EnumMaps, or maps with enum keys, get an
+     * EnumMap.  Other concrete declared types, like LinkedHashMap or TreeMap, are created as declared.
+     * A SortedMap gets a TreeMap and a ConcurrentMap a ConcurrentHashMap.  Everything else gets a
+     * HashMap big enough to hold size entries, or whatever {@link #createMapImpl()} returns if a
+     * subclass overrides it.
+     */
+    protected Map<Object,Object> createMapImpl(ObjectBinder context, Type targetType, int size) {
+        Map<Object,Object> map = (Map<Object,Object>)ContainerType.resolve( types, targetType, HashMap.class, EnumMap.class, TreeMap.class, ConcurrentHashMap.class ).newInstance( context, size );
+        if( map != null ) return map;
+        return legacyMapImpl ? createMapImpl() : new HashMap<Object,Object>( ContainerType.capacity( size ) );
+    }
+
+    private static boolean overridesLegacyMapImpl(Class clazz) {
+        for( Class current = clazz; current != MapObjectFactory.class; current = current.getSuperclass() ) {
+            try {
+                current.getDeclaredMethod( "createMapImpl" );
+                return true;
+            } catch( NoSuchMethodException e ) {
+                // keep looking in the superclass
+            }
+        }
+        return false;
     }
 
+    /**
+     * Creates the map when nothing more specific is declared.  Only called when a subclass overrides it.
+     *
+     * @deprecated override {@link #createMapImpl(flexjson.ObjectBinder, java.lang.reflect.Type, int)} instead.
+     */
+    @Deprecated
     protected HashMap<Object, Object> createMapImpl() {
         return new HashMap<Object,Object>();
     }
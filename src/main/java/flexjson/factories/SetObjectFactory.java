@@ -5,16 +5,28 @@ import flexjson.ObjectFactory;
 
 import java.lang.reflect.Type;
 import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
 
 public class SetObjectFactory implements ObjectFactory {
+
+    private final ConcurrentMap<Type,ContainerType> types = ContainerType.newCache();
+
     public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
         if( value instanceof Collection) {
-            return context.bindIntoCollection((Collection)value, new HashSet(), targetType);
+            Collection source = (Collection)value;
+            return context.bindIntoCollection( source, createSet( context, targetType, source.size() ), targetType );
         } else {
-            HashSet<Object> set = new HashSet<Object>();
+            Collection<Object> set = createSet( context, targetType, 1 );
             set.add( context.bind( value ) );
             return set;
         }
     }
+
+    private Collection<Object> createSet(ObjectBinder context, Type targetType, int size) {
+        Collection<Object> set = (Collection<Object>)ContainerType.resolve( types, targetType, HashSet.class, EnumSet.class, TreeSet.class ).newInstance( context, size );
+        return set != null ? set : new HashSet<Object>( ContainerType.capacity( size ) );
+    }
 }
@@ -6,15 +6,24 @@ import flexjson.ObjectFactory;
 import java.lang.reflect.Type;
 import java.util.Collection;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentMap;
 
 public class SortedSetObjectFactory implements ObjectFactory {
+
+    private final ConcurrentMap<Type,ContainerType> types = ContainerType.newCache();
+
     public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
         if( value instanceof Collection) {
-            return context.bindIntoCollection( (Collection)value, new TreeSet(), targetType);
+            return context.bindIntoCollection( (Collection)value, createSet( context, targetType ), targetType);
         } else {
-            TreeSet<Object> set = new TreeSet<Object>();
+            Collection<Object> set = createSet( context, targetType );
             set.add( context.bind( value ) );
             return set;
         }
     }
+
+    private Collection<Object> createSet(ObjectBinder context, Type targetType) {
+        Collection<Object> set = (Collection<Object>)ContainerType.resolve( types, targetType, TreeSet.class, null ).newInstance( context, 0 );
+        return set != null ? set : new TreeSet<Object>();
+    }
 }
@@ -0,0 +1,557 @@
+/**
+ * Copyright 2007 Charlie Hubbard
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ */
+package flexjson.processor;
+
+import flexjson.BeanAccessor;
+import flexjson.JSON;
+import flexjson.Omit;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * <p>
+ * Generates a {@link BeanAccessor} for every class annotated with {@link JSON}, so the class is
+ * serialized and deserialized with plain method calls instead of reflection.  The processor finds the
+ * same properties {@link flexjson.BeanAnalyzer} does, including inherited ones, and honors the name,
+ * include, omit, transformer and objectFactory of {@link JSON} annotations on fields and getters.
+ * </p>
+ *
+ * <p>
+ * The processor isn't registered as a service, so it only runs when it's asked for:
+ * </p>
+ *
+ * <pre>
+ *     javac -processor flexjson.processor.BeanAccessorProcessor ...
+ * </pre>
+ *
+ * <p>
+ * A class is left to reflection, with a warning, when the generated accessor couldn't reach something
+ * it needs, like a private getter or setter, or when a property's type is a type variable of the class.
+ * </p>
+ */
+@SupportedAnnotationTypes("flexjson.JSON")
+public class BeanAccessorProcessor extends AbstractProcessor {
+
+    private static final String JSON_ANNOTATION = JSON.class.getName();
+
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for( Element element : round.getElementsAnnotatedWith( JSON.class ) ) {
+            if( element.getKind() == ElementKind.CLASS ) {
+                try {
+                    generate( (TypeElement)element );
+                } catch( IOException e ) {
+                    processingEnv.getMessager().printMessage( Diagnostic.Kind.ERROR, "Could not write the accessor for " + element + ": " + e.getMessage(), element );
+                }
+            }
+        }
+        return false;
+    }
+
+    private void generate(TypeElement bean) throws IOException {
+        String problem = checkClass( bean );
+        List<Property> properties = null;
+        if( problem == null ) {
+            properties = analyze( bean );
+            for( Property property : properties ) {
+                problem = property.check();
+                if( problem != null ) break;
+            }
+        }
+        if( problem != null ) {
+            processingEnv.getMessager().printMessage( Diagnostic.Kind.WARNING, "No accessor generated for " + bean.getQualifiedName() + ", " + problem, bean );
+            return;
+        }
+
+        String packageName = packageOf( bean ).getQualifiedName().toString();
+        String beanName = bean.getQualifiedName().toString();
+        String accessorName = processingEnv.getElementUtils().getBinaryName( bean ).toString().substring( packageName.length() == 0 ? 0 : packageName.length() + 1 ) + BeanAccessor.SUFFIX;
+
+        PrintWriter out = new PrintWriter( processingEnv.getFiler().createSourceFile( packageName.length() == 0 ? accessorName : packageName + "." + accessorName, bean ).openWriter() );
+        try {
+            if( packageName.length() > 0 ) {
+                out.println( "package " + packageName + ";" );
+                out.println();
+            }
+            out.println( "@SuppressWarnings(\"unchecked\")" );
+            out.println( "public final class " + accessorName + " extends flexjson.BeanAccessor {" );
+            out.println();
+            out.println( "    public " + accessorName + "() {" );
+            out.println( "        super( " + beanName + ".class, " + isInstantiable( bean ) + "," );
+            out.println( "            new String[] { " + join( properties, 0 ) + " }," );
+            out.println( "            new String[] { " + join( properties, 1 ) + " }," );
+            out.println( "            new String[] { " + join( properties, 2 ) + " }," );
+            out.println( "            new Class[] { " + join( properties, 3 ) + " }," );
+            out.println( "            new java.lang.reflect.Type[] { " + join( properties, 4 ) + " }," );
+            out.println( "            new int[] { " + join( properties, 5 ) + " }," );
+            out.println( "            new Class[] { " + join( properties, 6 ) + " }," );
+            out.println( "            new Class[] { " + join( properties, 7 ) + " } );" );
+            out.println( "    }" );
+            out.println();
+            if( isInstantiable( bean ) ) {
+                out.println( "    public Object newInstance() {" );
+                out.println( "        return new " + beanName + "();" );
+                out.println( "    }" );
+                out.println();
+            }
+            out.println( "    public Object get(Object bean, int property) {" );
+            out.println( "        switch( property ) {" );
+            for( int i = 0; i < properties.size(); i++ ) {
+                String read = properties.get( i ).read( "((" + beanName + ")bean)" );
+                if( read != null ) out.println( "            case " + i + ": return " + read + ";" );
+            }
+            out.println( "            default: throw new IllegalArgumentException( \"Property \" + property + \" of " + beanName + " isn't readable\" );" );
+            out.println( "        }" );
+            out.println( "    }" );
+            out.println();
+            out.println( "    public void set(Object bean, int property, Object value) {" );
+            out.println( "        switch( property ) {" );
+            for( int i = 0; i < properties.size(); i++ ) {
+                String write = properties.get( i ).write( "((" + beanName + ")bean)", "value" );
+                if( write != null ) out.println( "            case " + i + ": " + write + "; break;" );
+            }
+            out.println( "            default: throw new IllegalArgumentException( \"Property \" + property + \" of " + beanName + " isn't writable\" );" );
+            out.println( "        }" );
+            out.println( "    }" );
+            out.println( "}" );
+        } finally {
+            out.close();
+        }
+    }
+
+    private String checkClass(TypeElement bean) {
+        if( bean.getNestingKind() == NestingKind.LOCAL || bean.getNestingKind() == NestingKind.ANONYMOUS ) {
+            return "local and anonymous classes can't be reached by name";
+        }
+        for( Element current = bean; current instanceof TypeElement; current = current.getEnclosingElement() ) {
+            if( current.getModifiers().contains( Modifier.PRIVATE ) ) {
+                return current + " is private";
+            }
+        }
+        return null;
+    }
+
+    private boolean isInstantiable(TypeElement bean) {
+        if( bean.getModifiers().contains( Modifier.ABSTRACT ) ) return false;
+        if( bean.getNestingKind() == NestingKind.MEMBER && !bean.getModifiers().contains( Modifier.STATIC ) ) return false;
+        for( ExecutableElement constructor : ElementFilter.constructorsIn( bean.getEnclosedElements() ) ) {
+            if( constructor.getParameters().isEmpty() && !constructor.getModifiers().contains( Modifier.PRIVATE ) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the properties the way BeanAnalyzer does: each class in the hierarchy contributes its own
+     * properties, and a property declared again in a subclass hides the inherited one but falls back
+     * to the inherited getter and setter when it doesn't declare its own.
+     */
+    private List<Property> analyze(TypeElement bean) {
+        List<TypeElement> hierarchy = new ArrayList<TypeElement>();
+        for( TypeElement current = bean; current != null; current = superclass( current ) ) {
+            hierarchy.add( 0, current );
+        }
+
+        Map<String,Property> merged = new TreeMap<String,Property>();
+        for( TypeElement clazz : hierarchy ) {
+            Map<String,Property> declared = new LinkedHashMap<String,Property>();
+            for( VariableElement field : ElementFilter.fieldsIn( clazz.getEnclosedElements() ) ) {
+                if( field.getModifiers().contains( Modifier.STATIC ) ) continue;
+                String name = field.getSimpleName().toString();
+                if( !declared.containsKey( name ) ) {
+                    Property property = new Property( bean, name, merged.get( name ) );
+                    property.field = field;
+                    property.type = field.asType();
+                    property.annotate( field );
+                    declared.put( name, property );
+                }
+            }
+
+            for( ExecutableElement method : ElementFilter.methodsIn( clazz.getEnclosedElements() ) ) {
+                if( method.getModifiers().contains( Modifier.STATIC ) ) continue;
+                String name = method.getSimpleName().toString();
+                if( name.length() <= 3 && !name.startsWith( "is" ) ) continue;
+
+                if( method.getParameters().isEmpty() && method.getReturnType().getKind() != TypeKind.VOID ) {
+                    String property;
+                    if( name.startsWith( "get" ) ) {
+                        property = uncapitalize( name.substring( 3 ) );
+                    } else if( name.startsWith( "is" ) ) {
+                        property = uncapitalize( name.substring( 2 ) );
+                    } else {
+                        continue;
+                    }
+                    declare( bean, declared, merged, property ).setReadMethod( method );
+                } else if( method.getParameters().size() == 1 && name.startsWith( "set" ) ) {
+                    declare( bean, declared, merged, uncapitalize( name.substring( 3 ) ) ).addWriteMethod( method );
+                }
+            }
+
+            for( Property property : declared.values() ) {
+                if( property.getReadMethod() != null || property.getWriteMethod() != null || property.field.getModifiers().contains( Modifier.PUBLIC ) ) {
+                    merged.put( property.name, property );
+                }
+            }
+        }
+        return new ArrayList<Property>( merged.values() );
+    }
+
+    private Property declare(TypeElement bean, Map<String,Property> declared, Map<String,Property> inherited, String name) {
+        Property property = declared.get( name );
+        if( property == null ) {
+            property = new Property( bean, name, inherited.get( name ) );
+            declared.put( name, property );
+        }
+        return property;
+    }
+
+    private TypeElement superclass(TypeElement clazz) {
+        TypeMirror superclass = clazz.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement)((DeclaredType)superclass).asElement() : null;
+    }
+
+    private PackageElement packageOf(Element element) {
+        while( !(element instanceof PackageElement) ) {
+            element = element.getEnclosingElement();
+        }
+        return (PackageElement)element;
+    }
+
+    private String uncapitalize( String value ) {
+        if( value.length() < 2 ) {
+             return value.toLowerCase();
+        } else if( Character.isUpperCase(value.charAt(0)) && Character.isUpperCase(value.charAt(1)) ) {
+            return value;
+        } else {
+            return Character.toLowerCase( value.charAt(0) ) + value.substring(1);
+        }
+    }
+
+    private String join(List<Property> properties, int column) {
+        StringBuilder builder = new StringBuilder();
+        for( Property property : properties ) {
+            if( builder.length() > 0 ) builder.append( ", " );
+            builder.append( property.column( column ) );
+        }
+        return builder.toString();
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure( type ).toString();
+    }
+
+    private boolean isAssignable(TypeMirror from, TypeMirror to) {
+        return processingEnv.getTypeUtils().isAssignable( processingEnv.getTypeUtils().erasure( from ), processingEnv.getTypeUtils().erasure( to ) );
+    }
+
+    /**
+     * @return an expression that creates the java.lang.reflect.Type for the given type.  Type variables
+     * and wildcards inside type arguments are left as null, which binds them like untyped values.
+     */
+    private String typeExpression(TypeMirror type) {
+        if( type.getKind() == TypeKind.DECLARED && !((DeclaredType)type).getTypeArguments().isEmpty() ) {
+            StringBuilder builder = new StringBuilder( "new flexjson.JSONParameterizedType( " ).append( erasure( type ) ).append( ".class" );
+            for( TypeMirror argument : ((DeclaredType)type).getTypeArguments() ) {
+                builder.append( ", " );
+                if( argument.getKind() == TypeKind.DECLARED || argument.getKind() == TypeKind.ARRAY ) {
+                    builder.append( typeExpression( argument ) );
+                } else {
+                    builder.append( "(java.lang.reflect.Type)null" );
+                }
+            }
+            return builder.append( " )" ).toString();
+        }
+        return erasure( type ) + ".class";
+    }
+
+    /**
+     * @return the expression converting an Object into the given type.
+     */
+    private String cast(TypeMirror type, String value) {
+        switch( type.getKind() ) {
+            case BOOLEAN:
+                return "((Boolean)" + value + ").booleanValue()";
+            case CHAR:
+                return "((Character)" + value + ").charValue()";
+            case BYTE:
+            case SHORT:
+            case INT:
+            case LONG:
+            case FLOAT:
+            case DOUBLE:
+                return "((Number)" + value + ")." + type.getKind().name().toLowerCase() + "Value()";
+            default:
+                return "(" + erasure( type ) + ")" + value;
+        }
+    }
+
+    /**
+     * @return the JSON name written the way JSONContext.writeQuoted writes it, as a Java string literal.
+     */
+    private String encode(String name) {
+        StringBuilder json = new StringBuilder( "\"" );
+        for( int i = 0; i < name.length(); i++ ) {
+            char c = name.charAt( i );
+            switch( c ) {
+                case '"': json.append( "\\u0022" ); break;
+                case '&': json.append( "\\u0026" ); break;
+                case '\'': json.append( "\\u0027" ); break;
+                case '<': json.append( "\\u003c" ); break;
+                case '>': json.append( "\\u003e" ); break;
+                case '\\': json.append( "\\\\" ); break;
+                case '\b': json.append( "\\b" ); break;
+                case '\f': json.append( "\\f" ); break;
+                case '\n': json.append( "\\n" ); break;
+                case '\r': json.append( "\\r" ); break;
+                case '\t': json.append( "\\t" ); break;
+                default:
+                    if( Character.isISOControl( c ) ) {
+                        json.append( String.format( "\\u%04X", (int)c ) );
+                    } else {
+                        json.append( c );
+                    }
+            }
+        }
+        return literal( json.append( "\"" ).toString() );
+    }
+
+    private String literal(String value) {
+        StringBuilder literal = new StringBuilder( "\"" );
+        for( int i = 0; i < value.length(); i++ ) {
+            char c = value.charAt( i );
+            if( c == '"' || c == '\\' ) {
+                literal.append( '\\' ).append( c );
+            } else if( c < 0x20 || c > 0x7e ) {
+                literal.append( String.format( "\\u%04x", (int)c ) );
+            } else {
+                literal.append( c );
+            }
+        }
+        return literal.append( "\"" ).toString();
+    }
+
+    /**
+     * A property as one class in the hierarchy declares it, following BeanProperty.
+     */
+    private class Property {
+        private final TypeElement bean;
+        private final String name;
+        private final Property inherited;
+        private VariableElement field;
+        private TypeMirror type;
+        private ExecutableElement readMethod;
+        private final Map<String,ExecutableElement> writeMethods = new LinkedHashMap<String,ExecutableElement>();
+        private AnnotationMirror annotation;
+
+        private Property(TypeElement bean, String name, Property inherited) {
+            this.bean = bean;
+            this.name = name;
+            this.inherited = inherited;
+        }
+
+        private void annotate(Element element) {
+            for( AnnotationMirror mirror : element.getAnnotationMirrors() ) {
+                if( ((TypeElement)mirror.getAnnotationType().asElement()).getQualifiedName().contentEquals( JSON_ANNOTATION ) ) {
+                    annotation = mirror;
+                }
+            }
+        }
+
+        private void setReadMethod(ExecutableElement method) {
+            if( type == null ) {
+                type = method.getReturnType();
+                readMethod = method;
+            } else if( isAssignable( type, method.getReturnType() ) ) {
+                readMethod = method;
+            }
+            if( readMethod != null ) annotate( readMethod );
+        }
+
+        private void addWriteMethod(ExecutableElement method) {
+            TypeMirror parameter = method.getParameters().get( 0 ).asType();
+            if( type == null ) type = parameter;
+            writeMethods.put( erasure( parameter ), method );
+        }
+
+        private ExecutableElement getReadMethod() {
+            if( readMethod == null && inherited != null ) return inherited.getReadMethod();
+            return readMethod;
+        }
+
+        private ExecutableElement getWriteMethod() {
+            ExecutableElement writeMethod = writeMethods.get( erasure( type ) );
+            if( writeMethod == null && inherited != null ) return inherited.getWriteMethod();
+            return writeMethod;
+        }
+
+        private boolean isTransient() {
+            return field != null && field.getModifiers().contains( Modifier.TRANSIENT );
+        }
+
+        private boolean readsField() {
+            return getReadMethod() == null && field != null && !isTransient() && isAccessible( field );
+        }
+
+        private boolean writesField() {
+            return getWriteMethod() == null && field != null && field.getModifiers().contains( Modifier.PUBLIC ) && !isTransient() && !field.getModifiers().contains( Modifier.FINAL );
+        }
+
+        private boolean isReadable() {
+            return getReadMethod() != null || readsField();
+        }
+
+        private boolean isWritable() {
+            return getWriteMethod() != null || writesField();
+        }
+
+        /**
+         * @return why the property can't be generated, or null if it can.
+         */
+        private String check() {
+            if( getReadMethod() != null && !isAccessible( getReadMethod() ) ) {
+                return getReadMethod() + " isn't accessible";
+            } else if( getWriteMethod() != null && !isAccessible( getWriteMethod() ) ) {
+                return getWriteMethod() + " isn't accessible";
+            } else if( isWritable() && writeType().getKind() == TypeKind.TYPEVAR ) {
+                return "the type of " + name + " is a type variable";
+            }
+            return null;
+        }
+
+        /**
+         * @return true if the accessor, which lives in the bean's package, can use the member.
+         */
+        private boolean isAccessible(Element member) {
+            Set<Modifier> modifiers = member.getModifiers();
+            if( modifiers.contains( Modifier.PUBLIC ) ) return true;
+            if( modifiers.contains( Modifier.PRIVATE ) ) return false;
+            return packageOf( member ).equals( packageOf( bean ) );
+        }
+
+        /**
+         * @return the type a value is written as, with the bean's type arguments for its superclasses
+         * filled in.
+         */
+        private TypeMirror writeType() {
+            DeclaredType beanType = (DeclaredType)bean.asType();
+            if( getWriteMethod() != null ) {
+                ExecutableType setter = (ExecutableType)processingEnv.getTypeUtils().asMemberOf( beanType, getWriteMethod() );
+                return setter.getParameterTypes().get( 0 );
+            }
+            return processingEnv.getTypeUtils().asMemberOf( beanType, field );
+        }
+
+        private String read(String bean) {
+            if( getReadMethod() != null ) {
+                return bean + "." + getReadMethod().getSimpleName() + "()";
+            } else if( readsField() ) {
+                return bean + "." + field.getSimpleName();
+            }
+            return null;
+        }
+
+        private String write(String bean, String value) {
+            if( !isWritable() ) return null;
+            String converted = cast( writeType(), value );
+            if( getWriteMethod() != null ) {
+                return bean + "." + getWriteMethod().getSimpleName() + "( " + converted + " )";
+            }
+            return bean + "." + field.getSimpleName() + " = " + converted;
+        }
+
+        private String column(int column) {
+            switch( column ) {
+                case 0: return literal( name );
+                case 1: return literal( jsonName() );
+                case 2: return encode( jsonName() );
+                case 3: return erasure( type ) + ".class";
+                case 4: return isWritable() ? typeExpression( writeType() ) : "null";
+                case 5: return String.valueOf( flags() );
+                case 6: return annotationClass( "transformer", "flexjson.transformer.Transformer" );
+                default: return annotationClass( "objectFactory", "flexjson.ObjectFactory" );
+            }
+        }
+
+        private int flags() {
+            int flags = 0;
+            if( isReadable() ) flags |= BeanAccessor.READABLE;
+            if( isWritable() ) flags |= BeanAccessor.WRITABLE;
+            if( isTransient() ) flags |= BeanAccessor.TRANSIENT;
+            if( annotation != null ) {
+                flags |= Boolean.TRUE.equals( annotationValue( "include" ) ) ? BeanAccessor.INCLUDE : BeanAccessor.EXCLUDE;
+                for( Object omission : (List<?>)annotationValue( "omit" ) ) {
+                    String constant = ((AnnotationValue)omission).getValue().toString();
+                    flags |= 1 << (Omit.valueOf( constant ).ordinal() + BeanAccessor.OMIT_SHIFT);
+                }
+            }
+            return flags;
+        }
+
+        private String jsonName() {
+            Object jsonName = annotation != null ? annotationValue( "name" ) : null;
+            return jsonName != null && jsonName.toString().length() > 0 ? jsonName.toString() : name;
+        }
+
+        private String annotationClass(String element, String none) {
+            Object value = annotation != null ? annotationValue( element ) : null;
+            if( value instanceof TypeMirror && !erasure( (TypeMirror)value ).equals( none ) ) {
+                return erasure( (TypeMirror)value ) + ".class";
+            }
+            return "null";
+        }
+
+        private Object annotationValue(String element) {
+            Map<? extends ExecutableElement,? extends AnnotationValue> values = processingEnv.getElementUtils().getElementValuesWithDefaults( annotation );
+            for( Map.Entry<? extends ExecutableElement,? extends AnnotationValue> entry : values.entrySet() ) {
+                if( entry.getKey().getSimpleName().contentEquals( element ) ) {
+                    return entry.getValue().getValue();
+                }
+            }
+            return null;
+        }
+    }
+}
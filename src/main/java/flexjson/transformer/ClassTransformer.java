@@ -15,10 +15,18 @@
  */
 package flexjson.transformer;
 
+import flexjson.TypeRegistry;
+
 public class ClassTransformer extends AbstractTransformer {
 
     public void transform(Object object) {
-        getContext().writeQuoted(((Class) object).getName());
+        TypeRegistry types = getContext().getTypeRegistry();
+        Object hint = types != null ? types.getHint((Class) object) : ((Class) object).getName();
+        if (hint instanceof Number) {
+            getContext().write(hint.toString());
+        } else {
+            getContext().writeQuoted(hint.toString());
+        }
     }
 
 }
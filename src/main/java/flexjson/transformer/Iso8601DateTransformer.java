@@ -0,0 +1,34 @@
+package flexjson.transformer;
+
+import flexjson.Iso8601;
+import flexjson.JSONException;
+import flexjson.ObjectBinder;
+import flexjson.ObjectFactory;
+
+import java.lang.reflect.Type;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Writes Dates and Calendars as ISO-8601 timestamps in UTC, like 2011-04-15T10:20:30.123Z, and reads
+ * ISO-8601 timestamps with any offset back into Dates.  Unlike a {@link DateTransformer} with an
+ * equivalent pattern it doesn't need a SimpleDateFormat per thread.
+ */
+public class Iso8601DateTransformer extends AbstractTransformer implements ObjectFactory {
+
+    public void transform(Object value) {
+        long millis = value instanceof Calendar ? ((Calendar) value).getTimeInMillis() : ((Date) value).getTime();
+        getContext().writeQuoted(Iso8601.format(millis));
+    }
+
+    public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
+        if (value instanceof Number) {
+            return new Date(((Number) value).longValue());
+        }
+        long millis = Iso8601.parse(value.toString());
+        if (millis == Iso8601.INVALID) {
+            throw new JSONException(String.format("%s: Failed to parse %s as an ISO-8601 date.", context.getCurrentPath(), value));
+        }
+        return new Date(millis);
+    }
+}
@@ -17,43 +17,24 @@ package flexjson.transformer;
 
 import flexjson.*;
 
+import java.util.Collection;
+
 public class ObjectTransformer extends AbstractTransformer {
 
-    public void transform(Object object) {
-        JSONContext context = getContext();
+    public void transform(final Object object) {
+        final JSONContext context = getContext();
         Path path = context.getPath();
         ChainedSet visits = context.getVisits();
         try {
             if (!visits.contains(object)) {
-                context.setVisits(new ChainedSet(visits));
-                context.getVisits().add(object);
-                // traverse object
-                BeanAnalyzer analyzer = BeanAnalyzer.analyze( resolveClass(object) );
-                TypeContext typeContext = context.writeOpenObject();
-                for( BeanProperty prop : analyzer.getProperties() ) {
-                    String name = prop.getName();
-                    path.enqueue(name);
-                    if( context.isIncluded(prop) && prop.isReadable() ) {
-                        Object value = prop.getValue( object );
-                        if (!context.getVisits().contains(value)) {
-
-                            TransformerWrapper transformer = (TransformerWrapper)context.getTransformer(value);
-
-                            if(!transformer.isInline()) {
-                                if (!typeContext.isFirst()) context.writeComma();
-                                typeContext.increment();
-                                context.writeName(prop.getJsonName());
-                            }
-                            typeContext.setPropertyName(prop.getJsonName());
-
-                            transformer.transform(value);
-                        }
+                final boolean omitClassHint = context.isClassHintRedundant(object);
+                if (!context.isCachingFragments() || !context.writeCached(object, omitClassHint, new Runnable() {
+                    public void run() {
+                        writeObject(context, object, omitClassHint);
                     }
-                    path.pop();
+                })) {
+                    writeObject(context, object, omitClassHint);
                 }
-                context.writeCloseObject();
-                context.setVisits((ChainedSet) context.getVisits().getParent());
-
             } else {
             	TypeContext parentTypeContext = getContext().peekTypeContext();
             	if(parentTypeContext != null) {
@@ -67,6 +48,81 @@ public class ObjectTransformer extends AbstractTransformer {
         }
     }
 
+    private void writeObject(JSONContext context, Object object, boolean omitClassHint) {
+        Path path = context.getPath();
+        context.setVisits(new ChainedSet(context.getVisits()));
+        context.getVisits().add(object);
+        // traverse object
+        Class clazz = resolveClass(object);
+        ObjectWriter writer = context.getObjectWriter(clazz);
+        TypeContext typeContext = context.writeOpenObject();
+        if (writer != null) {
+            BeanProperty[] properties = writer.properties;
+            boolean[] included = context.getInclusions(clazz, writer.propertyList);
+            for (int i = 0; i < properties.length; i++) {
+                BeanProperty prop = properties[i];
+                String name = prop.getName();
+                if( omitClassHint && name.equals("class") ) continue;
+                path.enqueue(name);
+                if( included[i] ) {
+                    Object value = prop.getValue( object );
+                    if (context.isOmitted(prop, value)) {
+                        // decided before the name is written so nothing has to be taken back
+                    } else if (value != null && writer.kinds[i] != ObjectWriter.OTHER) {
+                        if (!typeContext.isFirst()) context.writeComma();
+                        typeContext.increment();
+                        context.writeEncodedName(writer.names[i]);
+                        typeContext.setPropertyName(prop.getJsonName());
+                        ObjectWriter.write(context, writer.kinds[i], value);
+                    } else {
+                        writeProperty(context, typeContext, prop, writer.names[i], value, writer.transformers[i]);
+                    }
+                }
+                path.pop();
+            }
+        } else {
+            Collection<BeanProperty> properties = BeanAnalyzer.analyze( clazz ).getProperties();
+            boolean[] included = context.getInclusions(clazz, properties);
+            int i = 0;
+            for( BeanProperty prop : properties ) {
+                String name = prop.getName();
+                if( omitClassHint && name.equals("class") ) { i++; continue; }
+                path.enqueue(name);
+                if( included[i++] ) {
+                    Object value = prop.getValue( object );
+                    if (!context.isOmitted(prop, value)) {
+                        writeProperty(context, typeContext, prop, prop.getEncodedName(), value, prop.getWrappedTransformer());
+                    }
+                }
+                path.pop();
+            }
+        }
+        context.writeCloseObject();
+        context.setVisits((ChainedSet) context.getVisits().getParent());
+    }
+
+    private void writeProperty(JSONContext context, TypeContext typeContext, BeanProperty prop, String encodedName, Object value, Transformer propertyTransformer) {
+        if (!context.getVisits().contains(value)) {
+
+            TransformerWrapper transformer = (TransformerWrapper)context.getTransformer(value, propertyTransformer);
+
+            if(!transformer.isInline()) {
+                if (!typeContext.isFirst()) context.writeComma();
+                typeContext.increment();
+                if (encodedName != null) {
+                    context.writeEncodedName(encodedName);
+                } else {
+                    context.writeName(prop.getJsonName());
+                }
+            }
+            typeContext.setPropertyName(prop.getJsonName());
+
+            context.setDeclaredType(value, prop.getPropertyType());
+            transformer.transform(value);
+            context.setDeclaredType(null, null);
+        }
+    }
+
     protected Class resolveClass( Object obj ) {
         return obj.getClass();
     }
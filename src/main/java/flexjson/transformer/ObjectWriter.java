@@ -0,0 +1,104 @@
+package flexjson.transformer;
+
+import flexjson.BeanAnalyzer;
+import flexjson.BeanProperty;
+import flexjson.JSONContext;
+import flexjson.StringBuilderOutputHandler;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * The properties of one class worked out ahead of time so {@link ObjectTransformer} can write
+ * instances without going back to the class's {@link BeanAnalyzer}.  Each property's name is already
+ * quoted and escaped, and Strings, numbers and booleans that the serializer writes with the standard
+ * transformers are written straight to the output instead of being looked up and dispatched through
+ * a transformer per value.
+ *
+ * @see ObjectWriterCache
+ */
+public final class ObjectWriter {
+
+    static final int OTHER = 0;
+    static final int STRING = 1;
+    static final int NUMBER = 2;
+    static final int BOOLEAN = 3;
+
+    final BeanProperty[] properties;
+    final Collection<BeanProperty> propertyList;
+    final String[] names;
+    final int[] kinds;
+    final Transformer[] transformers;
+
+    ObjectWriter(Class clazz, TypeTransformerMap typeTransformers, Map<?,?> pathTransformers) {
+        Collection<BeanProperty> all = BeanAnalyzer.analyze( clazz ).getProperties();
+        properties = all.toArray( new BeanProperty[all.size()] );
+        propertyList = all;
+        names = new String[properties.length];
+        kinds = new int[properties.length];
+        transformers = new Transformer[properties.length];
+        for( int i = 0; i < properties.length; i++ ) {
+            BeanProperty property = properties[i];
+            names[i] = property.getEncodedName() != null ? property.getEncodedName() : encode( property.getJsonName() );
+            transformers[i] = property.getWrappedTransformer();
+            // a path transformer or the property's own transformer could apply to any value
+            if( pathTransformers.isEmpty() && transformers[i] == null ) {
+                kinds[i] = kindOf( property.getPropertyType(), typeTransformers );
+            }
+        }
+    }
+
+    private static int kindOf(Class type, TypeTransformerMap typeTransformers) {
+        Class boxed = box( type );
+        // only final classes, so a value can't be a subclass with a transformer of its own
+        if( boxed == String.class ) {
+            return isStandard( boxed, typeTransformers, StringTransformer.class ) ? STRING : OTHER;
+        } else if( boxed == Boolean.class ) {
+            return isStandard( boxed, typeTransformers, BooleanTransformer.class ) ? BOOLEAN : OTHER;
+        } else if( boxed == Integer.class || boxed == Long.class || boxed == Double.class || boxed == Float.class || boxed == Short.class || boxed == Byte.class ) {
+            return isStandard( boxed, typeTransformers, NumberTransformer.class ) ? NUMBER : OTHER;
+        }
+        return OTHER;
+    }
+
+    private static boolean isStandard(Class type, TypeTransformerMap typeTransformers, Class standard) {
+        Transformer transformer = typeTransformers.getTransformerForType( type );
+        return transformer instanceof TransformerWrapper && ((TransformerWrapper)transformer).transformer.getClass() == standard;
+    }
+
+    private static Class box(Class type) {
+        if( !type.isPrimitive() ) return type;
+        if( type == int.class ) return Integer.class;
+        if( type == long.class ) return Long.class;
+        if( type == double.class ) return Double.class;
+        if( type == float.class ) return Float.class;
+        if( type == short.class ) return Short.class;
+        if( type == byte.class ) return Byte.class;
+        if( type == boolean.class ) return Boolean.class;
+        return type;
+    }
+
+    private static String encode(String name) {
+        StringBuilder encoded = new StringBuilder();
+        JSONContext context = new JSONContext();
+        context.setOut( new StringBuilderOutputHandler( encoded ) );
+        context.writeQuoted( name );
+        return encoded.toString();
+    }
+
+    /**
+     * Writes a value of a property whose kind isn't {@link #OTHER}.
+     */
+    static void write(JSONContext context, int kind, Object value) {
+        switch( kind ) {
+            case STRING:
+                context.writeQuoted( (String)value );
+                break;
+            case BOOLEAN:
+                context.write( ((Boolean)value) ? "true" : "false" );
+                break;
+            default:
+                context.write( value.toString() );
+        }
+    }
+}
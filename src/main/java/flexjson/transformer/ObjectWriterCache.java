@@ -0,0 +1,62 @@
+package flexjson.transformer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts how often each class is serialized and hands out an {@link ObjectWriter} for a class once
+ * it has been serialized a threshold number of times, so classes written once or twice don't pay for
+ * building one.  A JSONSerializer keeps one cache and clears it whenever its transformers or includes
+ * and excludes change, since writers depend on both.
+ */
+public class ObjectWriterCache {
+
+    private final int threshold;
+    private final ConcurrentMap<Class,AtomicInteger> counts = new ConcurrentHashMap<Class,AtomicInteger>();
+    private final ConcurrentMap<Class,ObjectWriter> writers = new ConcurrentHashMap<Class,ObjectWriter>();
+
+    /**
+     * @param threshold the number of times a class is serialized before a writer is built for it.
+     */
+    public ObjectWriterCache(int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return the writer for the class, or null if it hasn't been serialized often enough to have one.
+     */
+    public ObjectWriter getWriter(Class clazz, TypeTransformerMap typeTransformers, Map<?,?> pathTransformers) {
+        ObjectWriter writer = writers.get( clazz );
+        if( writer != null ) return writer;
+
+        AtomicInteger count = counts.get( clazz );
+        if( count == null ) {
+            count = new AtomicInteger();
+            AtomicInteger existing = counts.putIfAbsent( clazz, count );
+            if( existing != null ) count = existing;
+        }
+        if( count.incrementAndGet() < threshold ) return null;
+
+        writer = new ObjectWriter( clazz, typeTransformers, pathTransformers );
+        ObjectWriter existing = writers.putIfAbsent( clazz, writer );
+        counts.remove( clazz );
+        return existing != null ? existing : writer;
+    }
+
+    /**
+     * @return the number of classes that have a writer.
+     */
+    public int size() {
+        return writers.size();
+    }
+
+    /**
+     * Forget every writer and count, so writers are built again for the current configuration.
+     */
+    public void clear() {
+        writers.clear();
+        counts.clear();
+    }
+}
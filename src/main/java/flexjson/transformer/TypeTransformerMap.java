@@ -36,20 +36,27 @@ public class TypeTransformerMap extends ConcurrentHashMap<Class, Transformer> {
         this.parentTransformerMap = parentTransformerMap;
     }
 
-    @SuppressWarnings("unchecked")
     public Transformer getTransformer(Object key) {
+        return getTransformerForType(key == null ? void.class : key.getClass());
+    }
+
+    /**
+     * @param keyClass the class of a value, or void.class for null.
+     * @return the transformer values of that class are written with.
+     */
+    @SuppressWarnings("unchecked")
+    public Transformer getTransformerForType(Class keyClass) {
         // look locally;
         LookupContext lookupContext = new LookupContext();
-        Class keyClass = (key == null ? void.class : key.getClass());
 
         Transformer transformer = findTransformer(keyClass, keyClass, lookupContext);
 
         if (transformer == null && parentTransformerMap != null) {
             // look in parent
             // if no transformers found in child then check parent
-            transformer = parentTransformerMap.getTransformer(key);
+            transformer = parentTransformerMap.getTransformerForType(keyClass);
             if (transformer != null) {
-                putTransformer(key == null ? void.class : key.getClass(), transformer);
+                putTransformer(keyClass, transformer);
             }
         }
         if (!lookupContext.isCached()) {
@@ -0,0 +1,197 @@
+package flexjson;
+
+import flexjson.processor.BeanAccessorProcessor;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class BeanAccessorTest {
+
+    private static final String BASE =
+            "package generated;\n" +
+            "public class Base<T> {\n" +
+            "    private T id;\n" +
+            "    public T getId() { return id; }\n" +
+            "    public void setId(T id) { this.id = id; }\n" +
+            "}\n";
+
+    private static final String ACCOUNT =
+            "package generated;\n" +
+            "import flexjson.JSON;\n" +
+            "import java.util.List;\n" +
+            "@JSON\n" +
+            "public class Account extends Base<Long> {\n" +
+            "    private String owner;\n" +
+            "    private int balance;\n" +
+            "    private boolean active;\n" +
+            "    private List<String> tags;\n" +
+            "    @JSON(name = \"e-mail\")\n" +
+            "    private String email;\n" +
+            "    @JSON(include = false)\n" +
+            "    private String secret;\n" +
+            "    public String nickname;\n" +
+            "    @JSON(omit = flexjson.Omit.NULLS)\n" +
+            "    private String note;\n" +
+            "    public String getNote() { return note; }\n" +
+            "    public void setNote(String note) { this.note = note; }\n" +
+            "    public String getOwner() { return owner; }\n" +
+            "    public void setOwner(String owner) { this.owner = owner; }\n" +
+            "    public int getBalance() { return balance; }\n" +
+            "    public void setBalance(int balance) { this.balance = balance; }\n" +
+            "    public boolean isActive() { return active; }\n" +
+            "    public void setActive(boolean active) { this.active = active; }\n" +
+            "    public List<String> getTags() { return tags; }\n" +
+            "    public void setTags(List<String> tags) { this.tags = tags; }\n" +
+            "    public String getEmail() { return email; }\n" +
+            "    public void setEmail(String email) { this.email = email; }\n" +
+            "    public String getSecret() { return secret; }\n" +
+            "    public void setSecret(String secret) { this.secret = secret; }\n" +
+            "}\n";
+
+    @Test
+    public void testGeneratedAccessor() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) return; // running on a JRE
+
+        File dir = new File(System.getProperty("java.io.tmpdir"), "flexjson-accessor-" + System.nanoTime());
+        try {
+            compileAndCheck(compiler, dir);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    private void compileAndCheck(JavaCompiler compiler, File dir) throws Exception {
+        File sources = new File(dir, "generated");
+        assertTrue(sources.mkdirs());
+        File base = write(new File(sources, "Base.java"), BASE);
+        File account = write(new File(sources, "Account.java"), ACCOUNT);
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<JavaFileObject>();
+        StandardJavaFileManager files = compiler.getStandardFileManager(diagnostics, null, null);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, files, diagnostics,
+                Arrays.asList("-d", dir.getPath(), "-classpath", System.getProperty("java.class.path")),
+                null, files.getJavaFileObjects(base, account));
+        task.setProcessors(Collections.singletonList(new BeanAccessorProcessor()));
+        boolean compiled = task.call();
+        files.close();
+        for (Diagnostic diagnostic : diagnostics.getDiagnostics()) {
+            assertFalse(diagnostic.toString(), diagnostic.getKind() == Diagnostic.Kind.ERROR || diagnostic.getKind() == Diagnostic.Kind.WARNING);
+        }
+        assertTrue(compiled);
+        assertTrue(new File(sources, "Account" + BeanAccessor.SUFFIX + ".java").exists());
+
+        ClassLoader loader = new URLClassLoader(new URL[] { dir.toURI().toURL() }, getClass().getClassLoader());
+        Class accountClass = loader.loadClass("generated.Account");
+        assertNotNull(BeanAccessor.forClass(accountClass));
+        assertNull(BeanAccessor.forClass(loader.loadClass("generated.Base")));
+        for (BeanProperty property : BeanAnalyzer.analyze(accountClass).getProperties()) {
+            assertTrue(property.getName(), property.isGenerated());
+        }
+
+        String json = "{\"active\":true,\"balance\":42,\"e-mail\":\"jo@example.com\",\"id\":7,\"nickname\":\"jo\",\"owner\":\"Jo <Smith>\",\"secret\":\"s3cr3t\",\"tags\":[\"a\",\"b\"]}";
+        Object bound = new JSONDeserializer<Object>().use(null, accountClass).deserialize(json);
+        assertSame(accountClass, bound.getClass());
+        assertEquals("s3cr3t", accountClass.getMethod("getSecret").invoke(bound));
+        assertEquals(7L, accountClass.getMethod("getId").invoke(bound));
+
+        String serialized = new JSONSerializer().exclude("class").include("tags").serialize(bound);
+        assertEquals("{\"active\":true,\"balance\":42,\"e-mail\":\"jo@example.com\",\"id\":7,\"nickname\":\"jo\",\"owner\":\"Jo \\u003cSmith\\u003e\",\"tags\":[\"a\",\"b\"]}", serialized);
+
+        BeanAnalyzer.clearCache();
+        BeanAccessor.clearCache();
+    }
+
+    @Test
+    public void testRegisterReachesEveryThread() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Callable<Boolean> generated = new Callable<Boolean>() {
+            public Boolean call() {
+                return BeanAnalyzer.analyze(Point.class).getProperty("x").isGenerated();
+            }
+        };
+        try {
+            assertFalse(executor.submit(generated).get());
+            assertEquals(1, new JSONDeserializer<Point>().deserialize("{\"x\":1}", Point.class).x);
+
+            PointAccessor accessor = new PointAccessor();
+            BeanAccessor.register(accessor);
+            assertTrue(executor.submit(generated).get());
+            assertEquals(2, new JSONDeserializer<Point>().deserialize("{\"x\":2}", Point.class).x);
+            assertEquals(1, accessor.created);
+        } finally {
+            executor.shutdown();
+            BeanAccessor.clearCache();
+            BeanAnalyzer.clearAllCaches();
+            Instantiator.clearCache();
+        }
+    }
+
+    public static class Point {
+        private int x;
+
+        public int getX() { return x; }
+        public void setX(int x) { this.x = x; }
+    }
+
+    private static class PointAccessor extends BeanAccessor {
+        int created;
+
+        PointAccessor() {
+            super(Point.class, true, new String[] { "x" }, new String[] { "x" }, new String[] { "\"x\"" },
+                    new Class[] { int.class }, new Type[] { int.class }, new int[] { READABLE | WRITABLE },
+                    new Class[] { null }, new Class[] { null });
+        }
+
+        public Object newInstance() {
+            created++;
+            return new Point();
+        }
+
+        public Object get(Object bean, int property) {
+            return ((Point) bean).x;
+        }
+
+        public void set(Object bean, int property, Object value) {
+            ((Point) bean).x = (Integer) value;
+        }
+    }
+
+    private void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+
+    private File write(File file, String source) throws IOException {
+        FileWriter writer = new FileWriter(file);
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+}
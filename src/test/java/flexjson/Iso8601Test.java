@@ -0,0 +1,88 @@
+package flexjson;
+
+import flexjson.factories.DateObjectFactory;
+import flexjson.mock.Person;
+import flexjson.transformer.Iso8601DateTransformer;
+import org.junit.Test;
+
+import java.text.SimpleDateFormat;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class Iso8601Test {
+
+    @Test
+    public void testParse() throws Exception {
+        SimpleDateFormat utc = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS");
+        utc.setTimeZone(TimeZone.getTimeZone("UTC"));
+        long expected = utc.parse("2011-04-15T10:20:30.123").getTime();
+
+        assertEquals(expected, Iso8601.parse("2011-04-15T10:20:30.123Z"));
+        assertEquals(expected, Iso8601.parse("2011-04-15t10:20:30.123456z"));
+        assertEquals(expected, Iso8601.parse("2011-04-15T12:20:30.123+02:00"));
+        assertEquals(expected, Iso8601.parse("2011-04-15T05:20:30.123-0500"));
+        assertEquals(expected - 123, Iso8601.parse("2011-04-15 11:20:30+01"));
+        assertEquals(expected - 30123, Iso8601.parse("2011-04-15T10:20Z"));
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd").parse("2011-04-15").getTime(), Iso8601.parse("2011-04-15"));
+        assertEquals(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").parse("2011-04-15T10:20:30").getTime(), Iso8601.parse("2011-04-15T10:20:30"));
+    }
+
+    @Test
+    public void testInvalid() {
+        String[] invalid = { "", "2011", "04/15/11", "2011-13-01", "2011-02-29", "2011-04-15T", "2011-04-15T25:00Z",
+                "2011-04-15T10:20:30.Z", "2011-04-15T10:20:30+2", "2011-04-15T10:20:30Zjunk", "Fri Apr 15 10:20:30 EDT 2011" };
+        for (String text : invalid) {
+            assertEquals(text, Iso8601.INVALID, Iso8601.parse(text));
+        }
+    }
+
+    @Test
+    public void testFormatRoundTrip() {
+        SimpleDateFormat utc = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        utc.setTimeZone(TimeZone.getTimeZone("UTC"));
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            // 1600 through 2300
+            long millis = -11676096000000L + (long) (random.nextDouble() * 22089888000000L);
+            String formatted = Iso8601.format(millis);
+            assertEquals(utc.format(new Date(millis)), formatted);
+            assertEquals(formatted, millis, Iso8601.parse(formatted));
+        }
+    }
+
+    @Test
+    public void testDeserializeIsoDates() {
+        Person charlie = new FixtureCreator().createCharlie();
+        String json = new JSONSerializer().transform(new Iso8601DateTransformer(), Date.class).serialize(charlie);
+        assertTrue(json, json.contains(Iso8601.format(charlie.getBirthdate().getTime())));
+
+        Person person = new JSONDeserializer<Person>().deserialize(json);
+        assertEquals(charlie.getBirthdate(), person.getBirthdate());
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(0);
+        assertEquals("\"1970-01-01T00:00:00.000Z\"", new JSONSerializer().transform(new Iso8601DateTransformer(), Calendar.class).serialize(calendar));
+    }
+
+    @Test
+    public void testFormatsRememberedPerPath() {
+        String json = "[\"04/15/11\", \"04/16/11\", \"Fri Apr 15 10:20:30 PM EDT 2011\"]";
+        Date[] dates = new JSONDeserializer<Date[]>().use("values", new DateObjectFactory()).deserialize(json, Date[].class);
+        assertEquals(3, dates.length);
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTime(dates[1]);
+        assertEquals(16, calendar.get(Calendar.DAY_OF_MONTH));
+
+        // a remembered pattern that only reads the start of a value isn't used for it
+        String withTime = "01/02/03 10:20:30 PM";
+        Date[] fresh = new JSONDeserializer<Date[]>().use("values", new DateObjectFactory()).deserialize("[\"" + withTime + "\"]", Date[].class);
+        dates = new JSONDeserializer<Date[]>().use("values", new DateObjectFactory()).deserialize("[\"01/02/03\", \"" + withTime + "\"]", Date[].class);
+        assertEquals(fresh[0], dates[1]);
+        calendar.setTime(dates[1]);
+        assertEquals(22, calendar.get(Calendar.HOUR_OF_DAY));
+    }
+}
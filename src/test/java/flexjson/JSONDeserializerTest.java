@@ -2,6 +2,7 @@ package flexjson;
 
 import flexjson.factories.DateObjectFactory;
 import flexjson.factories.ExistingObjectFactory;
+import flexjson.factories.MapObjectFactory;
 import flexjson.model.Account;
 import flexjson.transformer.DateTransformer;
 import flexjson.transformer.Transformer;
@@ -12,10 +13,18 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.awt.geom.Point2D;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.Reader;
+import java.io.StringReader;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.lang.reflect.Array;
+import java.lang.reflect.Type;
 
 import static org.junit.Assert.*;
 
@@ -64,6 +73,496 @@ public class JSONDeserializerTest {
         assertEquals(jsonCharlie, jsonCharlie.getWork().getPerson());
     }
 
+    @Test
+    public void testDeserializeWithNestedPath() {
+        Person charlie = creator.createCharlie();
+        String person = new JSONSerializer().serialize(charlie);
+        String json = "{\"meta\":{\"skipped\":[1,{\"a\":\"}]\"},'x']},\"data\":{\"items\":[{\"ignored\":true}," + person + "]},\"trailing\":";
+
+        Person dotted = new JSONDeserializer<Person>().deserialize(json, "data.items.1", Person.class);
+        assertEquals(charlie.getFirstname(), dotted.getFirstname());
+        assertEquals(charlie.getHome().getCity(), dotted.getHome().getCity());
+
+        Person pointer = new JSONDeserializer<Person>().deserialize(json, "/data/items/1", Person.class);
+        assertEquals(charlie.getLastname(), pointer.getLastname());
+
+        assertNull(new JSONDeserializer<Person>().deserialize("{\"data\":{}}", "data.items", Person.class));
+
+        // keys with dots or slashes are selected literally by writing them as pointers
+        String literal = "{\"a.b\":" + person + ",\"/a\":" + person + "}";
+        assertEquals(charlie.getFirstname(), new JSONDeserializer<Person>().deserialize(literal, "/a.b", Person.class).getFirstname());
+        assertEquals(charlie.getFirstname(), new JSONDeserializer<Person>().deserialize(literal, "/~1a", Person.class).getFirstname());
+        assertNull(new JSONDeserializer<Person>().deserialize(literal, "a.b", Person.class));
+    }
+
+    @Test
+    public void testExtractSeveralPaths() {
+        String json = "{\"id\":7,\"data\":{\"name\":\"Charlie\",\"tags\":[\"a\",\"b\"],\"a/b\":\"slash\"},\"other\":{\"deep\":[[[]]]}}";
+        Map<String, Object> values = new JSONDeserializer<Object>().extract(json, "data.name", "/data/tags/1", "/data/a~1b", "id", "missing");
+
+        assertEquals(4, values.size());
+        assertEquals("Charlie", values.get("data.name"));
+        assertEquals("b", values.get("/data/tags/1"));
+        assertEquals("slash", values.get("/data/a~1b"));
+        assertEquals(7L, values.get("id"));
+        assertFalse(values.containsKey("missing"));
+
+        // paths to a json null are kept, only missing ones are left out
+        String nulls = "{\"a\":null,\"b\":1,\"c\":{\"d\":null}}";
+        for (boolean lazy : new boolean[] { false, true }) {
+            values = new JSONDeserializer<Object>().lazy(lazy).extract(nulls, "a", "b", "c", "c.d", "c.d.e", "c.x", "missing");
+            assertEquals(Arrays.asList("a", "b", "c", "c.d"), new ArrayList<String>(values.keySet()));
+            assertNull(values.get("a"));
+            assertNull(values.get("c.d"));
+            assertEquals(1L, values.get("b"));
+        }
+    }
+
+    @Test
+    public void testKeysAreShared() {
+        List<Map> rows = new JSONDeserializer<List<Map>>().deserialize("[{\"timestamp\":1,'id':2},{\"timestamp\":3,'id':4}]");
+        assertSame(keyNamed(rows.get(0), "timestamp"), keyNamed(rows.get(1), "timestamp"));
+        assertSame(keyNamed(rows.get(0), "id"), keyNamed(rows.get(1), "id"));
+
+        SymbolTable symbols = new SymbolTable(16, 12);
+        JSONDeserializer<Map> deserializer = new JSONDeserializer<Map>().symbolTable(symbols);
+        Map first = deserializer.deserialize("{\"timestamp\":1,\"aVeryLongKeyName\":1}");
+        Map second = deserializer.deserialize("{\"timestamp\":2,\"aVeryLongKeyName\":2}");
+        Map lazy = deserializer.lazy(true).deserialize("{\"timestamp\":3}");
+        assertSame(keyNamed(first, "timestamp"), keyNamed(second, "timestamp"));
+        assertSame(keyNamed(first, "timestamp"), keyNamed(lazy, "timestamp"));
+        assertNotSame(keyNamed(first, "aVeryLongKeyName"), keyNamed(second, "aVeryLongKeyName"));
+        assertEquals(2L, second.get("aVeryLongKeyName"));
+    }
+
+    @Test
+    public void testInstantiationDiagnostics() {
+        try {
+            new JSONDeserializer<Object>().use(null, NoDefaultConstructor.class).deserialize("{\"name\":\"x\"}");
+            fail("Expected NoDefaultConstructor to be rejected");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("lacks a no argument constructor"));
+            assertTrue(e.getMessage(), e.getMessage().contains("NoDefaultConstructor(String)"));
+        }
+        try {
+            new JSONDeserializer<Object>().use(null, AbstractShape.class).deserialize("{\"name\":\"x\"}");
+            fail("Expected AbstractShape to be rejected");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("is abstract"));
+        }
+        assertFalse(Instantiator.forClass(NoDefaultConstructor.class).isInstantiable());
+        assertEquals("int can't be instantiated as a bean.  Bind it with an ObjectFactory, or check the class given for this path.",
+                Instantiator.forClass(int.class).getProblem());
+        assertTrue(Instantiator.forClass(String[].class).getProblem().startsWith("java.lang.String[] can't be instantiated as a bean"));
+        assertSame(Instantiator.forClass(Person.class), Instantiator.forClass(Person.class));
+    }
+
+    @Test
+    public void testCompiledDeserializerIsShared() throws Exception {
+        final String json = new JSONSerializer().include("phones").serialize(creator.createCharlie());
+        JSONDeserializer<Person> deserializer = new JSONDeserializer<Person>().use("phones.values", Phone.class);
+        final CompiledDeserializer<Person> compiled = deserializer.compile(Person.class);
+        deserializer.use("phones.values", Address.class);
+
+        List<Thread> threads = new ArrayList<Thread>();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        for (int i = 0; i < 4; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        for (int j = 0; j < 200; j++) {
+                            Person person = compiled.deserialize(json);
+                            assertEquals("Charlie", person.getFirstname());
+                            assertEquals(Phone.class, person.getPhones().get(0).getClass());
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+
+        Person target = new Person();
+        assertSame(target, compiled.deserializeInto(json, target));
+        assertNotSame(target, compiled.deserialize(json));
+    }
+
+    @Test
+    public void testIterateTopLevelArray() {
+        List<Person> people = new ArrayList<Person>();
+        for (int i = 0; i < 50; i++) {
+            Person person = creator.createCharlie();
+            person.setFirstname("Charlie" + i);
+            people.add(person);
+        }
+        String json = new JSONSerializer().exclude("*.class").serialize(people);
+
+        final boolean[] closed = new boolean[1];
+        Reader reader = new StringReader(json) {
+            public void close() {
+                closed[0] = true;
+                super.close();
+            }
+        };
+        JSONIterator<Person> iterator = new JSONDeserializer<Person>().iterate(reader, Person.class);
+        int count = 0;
+        while (iterator.hasNext()) {
+            Person person = iterator.next();
+            assertEquals("Charlie" + count, person.getFirstname());
+            assertEquals("Hubbard", person.getLastname());
+            count++;
+        }
+        assertEquals(50, count);
+        assertTrue(closed[0]);
+
+        iterator = new JSONDeserializer<Person>().iterate(new ByteArrayInputStream(json.getBytes()), Person.class);
+        assertEquals("Charlie0", iterator.next().getFirstname());
+        iterator.close();
+        assertFalse(iterator.hasNext());
+
+        assertFalse(new JSONDeserializer<Person>().iterate(new StringReader(" [ ] "), Person.class).hasNext());
+        try {
+            new JSONDeserializer<Person>().iterate(new StringReader("{}"), Person.class).hasNext();
+            fail("Expected a top-level object to be rejected");
+        } catch (JSONException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("must start with '['"));
+        }
+    }
+
+    @Test
+    public void testIterateDocuments() {
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < 500; i++) {
+            lines.append("{\"firstname\":\"Charlie").append(i).append("\",\"lastname\":\"Hubbard\"}\n");
+        }
+
+        JSONIterator<Person> sequential = new JSONDeserializer<Person>().iterateDocuments(new StringReader(lines.toString()), Person.class);
+        int count = 0;
+        while (sequential.hasNext()) {
+            assertEquals("Charlie" + count++, sequential.next().getFirstname());
+        }
+        assertEquals(500, count);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            JSONIterator<Person> parallel = new JSONDeserializer<Person>().iterateDocuments(new StringReader(lines.toString()), Person.class, executor, 16);
+            count = 0;
+            while (parallel.hasNext()) {
+                assertEquals("Charlie" + count++, parallel.next().getFirstname());
+            }
+            assertEquals(500, count);
+
+            parallel = new JSONDeserializer<Person>().iterateDocuments(new StringReader("{\"firstname\":\"a\"}\n{\"firstname\":\n"), Person.class, executor, 4);
+            assertEquals("a", parallel.next().getFirstname());
+            try {
+                parallel.next();
+                fail("Expected the truncated document to fail");
+            } catch (JSONException e) {
+                assertFalse(parallel.hasNext());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        JSONIterator<Object> concatenated = new JSONDeserializer<Object>().iterateDocuments(new StringReader("{\"a\":1}{\"b\":2}[3] \"four\"\n5"), null);
+        List<Object> values = new ArrayList<Object>();
+        while (concatenated.hasNext()) {
+            values.add(concatenated.next());
+        }
+        assertEquals(5, values.size());
+        assertEquals(Arrays.asList(3L), values.get(2));
+        assertEquals("four", values.get(3));
+        assertEquals(5L, values.get(4));
+    }
+
+    @Test
+    public void testParallelArrayParsing() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 4000; i++) {
+            if (i > 0) json.append(i % 97 == 0 ? ",," : ",");
+            json.append("{\"firstname\":\"Charlie ").append(i).append(", \\\"[x]\\\"\",\"lastname\":'it\\'s',\"hobbies\":[[").append(i).append("],{\"a\":\"}\"}]}");
+        }
+        json.append("]");
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Map> sequential = new JSONDeserializer<List<Map>>().deserialize(json.toString());
+            List<Map> parallel = new JSONDeserializer<List<Map>>().parallel(executor, 8).deserialize(json.toString());
+            assertEquals(sequential.size(), parallel.size());
+            assertEquals(sequential, parallel);
+            assertNull(parallel.get(97));
+
+            List<Person> people = new JSONDeserializer<List<Person>>().parallel(executor, 8).use("values", Person.class).deserialize(new StringReader(json.toString()));
+            assertEquals("Charlie 98, \"[x]\"", people.get(99).getFirstname());
+            assertEquals("it's", people.get(99).getLastname());
+
+            try {
+                new JSONDeserializer<List<Map>>().parallel(executor, 8).deserialize(json.substring(0, json.length() - 1));
+                fail("Expected an unterminated array to be rejected");
+            } catch (JSONException e) {
+                // expected
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeserializeMappedFile() throws Exception {
+        String json = "[{\"firstname\":\"Ren\u00e9e \ud83d\ude00\",\"lastname\":\"\u4e2d\u6587\"},{\"firstname\":\"Charlie\"}]";
+        File file = File.createTempFile("flexjson", ".json");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF });
+            out.write(json.getBytes("UTF-8"));
+            out.close();
+
+            // windows of a few bytes split most of the multi-byte characters
+            for (int window = 4; window < 9; window++) {
+                Reader reader = new MappedFileReader(file, CompiledDeserializer.UTF8, window);
+                StringBuilder text = new StringBuilder();
+                for (int c = reader.read(); c >= 0; c = reader.read()) {
+                    text.append((char) c);
+                }
+                reader.close();
+                assertEquals(json, text.toString());
+            }
+
+            List<Person> people = new JSONDeserializer<List<Person>>().use("values", Person.class).deserialize(file);
+            assertEquals("Ren\u00e9e \ud83d\ude00", people.get(0).getFirstname());
+            assertEquals("\u4e2d\u6587", people.get(0).getLastname());
+
+            List<Map> lazy = new JSONDeserializer<List<Map>>().lazy(true).deserialize(file);
+            assertEquals("Charlie", lazy.get(1).get("firstname"));
+
+            JSONIterator<Person> iterator = new JSONDeserializer<Person>().iterate(file, Person.class);
+            assertEquals("Ren\u00e9e \ud83d\ude00", iterator.next().getFirstname());
+            assertEquals("Charlie", iterator.next().getFirstname());
+            assertFalse(iterator.hasNext());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testPrimitiveArrays() {
+        String json = "[1, -2, 2147483647, 3.0e1, \"4\"]";
+        for (boolean lazy : new boolean[] { false, true }) {
+            assertArrayEquals(new int[] { 1, -2, Integer.MAX_VALUE, 30, 4 }, new JSONDeserializer<int[]>().lazy(lazy).deserialize(json, int[].class));
+            assertArrayEquals(new long[] { 1, -2, Integer.MAX_VALUE, 30, 4 }, new JSONDeserializer<long[]>().lazy(lazy).deserialize(json, long[].class));
+            assertArrayEquals(new short[] { 1, 2 }, new JSONDeserializer<short[]>().lazy(lazy).deserialize("[1,2]", short[].class));
+            assertArrayEquals(new double[] { 0.1, -1.5e-7, 12345678901234567890.0, 1e300 },
+                    new JSONDeserializer<double[]>().lazy(lazy).deserialize("[0.1, -1.5e-7, 12345678901234567890, 1e300]", double[].class), 0.0);
+            assertArrayEquals(new float[] { 0.1f, 2.5f }, new JSONDeserializer<float[]>().lazy(lazy).deserialize("[0.1, 2.5]", float[].class), 0.0f);
+            assertTrue(Arrays.equals(new boolean[] { true, false }, new JSONDeserializer<boolean[]>().lazy(lazy).deserialize("[true, false]", boolean[].class)));
+
+            // a factory registered for the elements is still used
+            int[] doubled = new JSONDeserializer<int[]>().lazy(lazy).use("values", new ObjectFactory() {
+                public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
+                    return ((Number) value).intValue() * 2;
+                }
+            }).deserialize("[1, 2]", int[].class);
+            assertArrayEquals(new int[] { 2, 4 }, doubled);
+        }
+    }
+
+    @Test
+    public void testFactoryIsOnlyUsedForOneCall() {
+        ObjectFactory constant = new ObjectFactory() {
+            public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
+                return "constant";
+            }
+        };
+        JSONDeserializer<Object> deserializer = new JSONDeserializer<Object>();
+        assertEquals("constant", deserializer.deserialize("1", constant));
+        assertEquals(Arrays.asList(1L, 2L), deserializer.deserialize("[1,2]"));
+        assertEquals("constant", deserializer.deserialize(new StringReader("[1,2]"), constant));
+        assertEquals(Arrays.asList(1L, 2L), deserializer.deserialize(new StringReader("[1,2]")));
+    }
+
+    @Test
+    public void testLegacyMapFactory() {
+        MapObjectFactory legacy = new MapObjectFactory() {
+            protected HashMap<Object, Object> createMapImpl() {
+                return new LinkedHashMap<Object, Object>();
+            }
+        };
+        Map map = new JSONDeserializer<Map>().use(Map.class, legacy).deserialize("{\"b\":1,\"a\":2}");
+        assertEquals(LinkedHashMap.class, map.getClass());
+        assertEquals(HashMap.class, new JSONDeserializer<Map>().use(Map.class, new MapObjectFactory()).deserialize("{\"b\":1}").getClass());
+    }
+
+    @Test
+    public void testDeclaredCollectionTypes() {
+        String json = "{\"extensions\":{\"b\":2,\"a\":1,\"c\":3},\"names\":{\"y\":\"Y\",\"x\":\"X\"},\"sorted\":{\"q\":\"Q\",\"p\":\"P\"}," +
+                "\"types\":[\"WORK\",\"MOBILE\"],\"numbers\":{\"FAX\":\"555-1234\"},\"recent\":[\"a\",\"b\"],\"pending\":[\"c\"]}";
+        for (boolean lazy : new boolean[] { false, true }) {
+            PhoneBook book = new JSONDeserializer<PhoneBook>().lazy(lazy).deserialize(json, PhoneBook.class);
+            assertEquals(LinkedHashMap.class, book.getExtensions().getClass());
+            assertEquals(Integer.valueOf(3), book.getExtensions().get("c"));
+            assertEquals("x", book.getNames().firstKey());
+            assertTrue(book.getSorted() instanceof TreeMap);
+            assertEquals("p", book.getSorted().firstKey());
+            assertTrue(book.getTypes() instanceof EnumSet);
+            assertEquals(EnumSet.of(PhoneNumberType.MOBILE, PhoneNumberType.WORK), book.getTypes());
+            assertTrue(book.getNumbers() instanceof EnumMap);
+            assertEquals("555-1234", book.getNumbers().get(PhoneNumberType.FAX));
+            assertEquals("b", book.getRecent().getLast());
+            assertEquals("c", book.getPending().peek());
+        }
+    }
+
+    @Test
+    public void testDuplicateKeyPolicies() {
+        String json = "{\"firstname\":\"Charlie\",\"lastname\":null,\"firstname\":\"Chuck\",\"lastname\":\"Hubbard\"}";
+        try {
+            new JSONDeserializer<Person>().deserialize(json, Person.class);
+            fail("Expected duplicate keys to be rejected");
+        } catch (JSONException e) {
+            assertEquals("Duplicate key \"firstname\"", e.getMessage());
+        }
+        try {
+            new JSONDeserializer<Map>().deserialize("{\"a\":null,\"a\":null}");
+            fail("Expected a duplicate key with a null value to be rejected");
+        } catch (JSONException e) {
+            // expected
+        }
+        for (ObjectMapType type : ObjectMapType.values()) {
+            Person first = new JSONDeserializer<Person>().objectMapType(type).duplicateKeys(DuplicateKeyPolicy.FIRST_WINS).deserialize(json, Person.class);
+            assertEquals("Charlie", first.getFirstname());
+            assertNull(first.getLastname());
+
+            Person last = new JSONDeserializer<Person>().objectMapType(type).duplicateKeys(DuplicateKeyPolicy.LAST_WINS).deserialize(json, Person.class);
+            assertEquals("Chuck", last.getFirstname());
+            assertEquals("Hubbard", last.getLastname());
+
+            Person unchecked = new JSONDeserializer<Person>().objectMapType(type).duplicateKeys(DuplicateKeyPolicy.UNCHECKED).deserialize("{\"firstname\":\"Charlie\",\"lastname\":\"Hubbard\"}", Person.class);
+            assertEquals("Charlie", unchecked.getFirstname());
+            assertEquals("Hubbard", unchecked.getLastname());
+        }
+    }
+
+    @Test
+    public void testCompactObjectMap() {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 20; i > 0; i--) {
+            json.append(i < 20 ? "," : "").append("\"k").append(i).append("\":").append(i);
+        }
+        json.append("}");
+        Map<String, Object> map = (Map<String, Object>) new JSONTokener(json.toString()).objectMapType(ObjectMapType.COMPACT).nextValue();
+        assertTrue(map instanceof CompactMap);
+        assertEquals(20, map.size());
+        assertEquals("k20", map.keySet().iterator().next());
+        for (int i = 1; i <= 20; i++) {
+            assertEquals(i, ((Number) map.get("k" + i)).intValue());
+        }
+        assertFalse(map.containsKey("k21"));
+
+        for (int i = 20; i > 3; i--) {
+            assertEquals(i, ((Number) map.remove("k" + i)).intValue());
+        }
+        assertEquals(3, map.size());
+        assertNull(map.get("k4"));
+        assertEquals(2, ((Number) map.get("k2")).intValue());
+        Iterator<String> keys = map.keySet().iterator();
+        keys.next();
+        keys.remove();
+        assertEquals(new HashSet<String>(Arrays.asList("k2", "k1")), map.keySet());
+
+        Map<String, Object> hashMap = new HashMap<String, Object>(map);
+        assertEquals(hashMap, map);
+        assertEquals(hashMap.hashCode(), map.hashCode());
+
+        Map<String, Object> small = new JSONDeserializer<Map<String, Object>>().objectMapType(ObjectMapType.COMPACT).deserialize("{\"b\":{\"c\":[1,2]},\"a\":\"x\"}");
+        assertEquals("x", small.get("a"));
+        assertEquals(Arrays.asList(1L, 2L), ((Map) small.get("b")).get("c"));
+    }
+
+    @Test
+    public void testStrictParsing() {
+        String json = "{\"name\":\"Ch\\u0061rlie\\n\\/\",\"values\":[0,-1.5e+3,1234567890123,true,false,null,{}],\"empty\":[]}";
+        Map strict = new JSONDeserializer<Map>().strict(true).deserialize(json);
+        assertEquals(new JSONDeserializer<Map>().deserialize(json), strict);
+        assertEquals("Charlie\n/", strict.get("name"));
+        assertEquals(-1500.0, ((Number) ((List) strict.get("values")).get(1)).doubleValue(), 0.0);
+        assertEquals(1234567890123L, ((List) strict.get("values")).get(2));
+
+        String[] invalid = { "{'name':'Charlie'}", "{name:\"Charlie\"}", "(1,2)", "[1;2]", "{\"a\"=1}", "[1,]", "[1,,2]",
+                "{\"a\":1,}", "TRUE", "nul", "01", "-", "1.", "1e", ".5", "\"\\x41\"", "\"a\tb\"", "\"\\u12g4\"", "[1] [2]", "",
+                "[1,\u00012]", "{\"a\"\u0007:1}", "\u000b[1]", "{\"a\":1}\u0000garbage", "[1]\u0000" };
+        for (String input : invalid) {
+            try {
+                new JSONDeserializer<Object>().strict(true).deserialize(input);
+                fail("Expected strict parsing to reject " + input);
+            } catch (JSONException e) {
+                // expected
+            }
+        }
+        assertEquals(Arrays.asList(1L, 2L), new JSONDeserializer<Object>().deserialize("[1;2]"));
+        assertEquals(Boolean.TRUE, new JSONDeserializer<Object>().deserialize("TRUE"));
+        assertEquals(Arrays.asList(1L), new JSONDeserializer<Object>().strict(true).deserialize(" \t\n\r[1]\r\n"));
+        assertEquals(Arrays.asList(1L, 2L), new JSONDeserializer<Object>().deserialize("[1,\u00012]"));
+
+        JSONIterator<Object> elements = new JSONDeserializer<Object>().strict(true).iterate(new StringReader("[1,2,]"), null);
+        assertEquals(1L, elements.next());
+        assertEquals(2L, elements.next());
+        try {
+            elements.hasNext();
+            fail("Expected a trailing comma to be rejected");
+        } catch (JSONException e) {
+            // expected
+        }
+
+        elements = new JSONDeserializer<Object>().strict(true).iterate(new StringReader("[1,2] trailing"), null);
+        assertEquals(1L, elements.next());
+        assertEquals(2L, elements.next());
+        try {
+            elements.hasNext();
+            fail("Expected text after the array to be rejected");
+        } catch (JSONException e) {
+            // expected
+        }
+        elements = new JSONDeserializer<Object>().strict(true).iterate(new StringReader("[1] \n"), null);
+        assertEquals(1L, elements.next());
+        assertFalse(elements.hasNext());
+
+        // splitting a large array across threads still rejects text after it
+        StringBuilder large = new StringBuilder("[0");
+        for (int i = 1; i < 20000; i++) large.append(',').append(i);
+        large.append(']');
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            JSONDeserializer<List> parallel = new JSONDeserializer<List>().strict(true).parallel(executor, 4);
+            assertEquals(20000, parallel.deserialize(large + " \n").size());
+            try {
+                parallel.deserialize(large + " garbage");
+                fail("Expected strict parsing to reject text after a parallel parsed array");
+            } catch (JSONException e) {
+                // expected
+            }
+            try {
+                parallel.deserialize("\u000b" + large);
+                fail("Expected strict parsing to reject a control character before a parallel parsed array");
+            } catch (JSONException e) {
+                // expected
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Object keyNamed(Map map, String name) {
+        for (Object key : map.keySet()) {
+            if (key.equals(name)) return key;
+        }
+        return null;
+    }
+
     @Test
     public void testDeserializeWithIncludes() {
         Person charlie = creator.createCharlie();
@@ -622,4 +1121,12 @@ public class JSONDeserializerTest {
             return Class.forName(packageName + "." + map.get("class").toString());
         }
     }
+
+    public static class NoDefaultConstructor {
+        public NoDefaultConstructor(String name) {
+        }
+    }
+
+    public static abstract class AbstractShape {
+    }
 }
\ No newline at end of file
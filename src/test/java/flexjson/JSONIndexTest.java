@@ -0,0 +1,89 @@
+package flexjson;
+
+import flexjson.mock.Person;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JSONIndexTest {
+
+    private FixtureCreator creator;
+
+    @Before
+    public void setUp() {
+        creator = new FixtureCreator();
+    }
+
+    @Test
+    public void testLookupWithoutDecodingEverything() {
+        JSONIndex index = JSONIndex.parse("{\"type\":\"order\",\"id\":42,\"lines\":[{\"sku\":\"a\"},{\"sku\":\"b\"}],\"total\":12.5,\"paid\":true,\"note\":null}");
+        Map doc = (Map)index.getRoot();
+
+        assertEquals( 6, doc.size() );
+        assertEquals( "order", doc.get("type") );
+        assertEquals( 42, ((Number)doc.get("id")).intValue() );
+        assertEquals( 12.5, ((Number)doc.get("total")).doubleValue(), 0.000001 );
+        assertEquals( Boolean.TRUE, doc.get("paid") );
+        assertTrue( doc.containsKey("note") );
+        assertNull( doc.get("note") );
+        assertFalse( doc.containsKey("missing") );
+
+        List lines = (List)doc.get("lines");
+        assertEquals( 2, lines.size() );
+        assertEquals( "b", ((Map)lines.get(1)).get("sku") );
+        assertSame( lines, doc.get("lines") );
+    }
+
+    @Test
+    public void testEscapedStrings() {
+        Map doc = (Map)JSONIndex.parse("{\"k\\u0065y\":\"line\\nbreak \\\"quoted\\\" \\u00e9\"}").getRoot();
+        assertEquals( "line\nbreak \"quoted\" \u00e9", doc.get("key") );
+    }
+
+    @Test
+    public void testMatchesTokener() {
+        String json = new JSONSerializer().include("phones", "hobbies").serialize( creator.createCharlie() );
+        Map expected = (Map)new JSONTokener( json ).nextValue();
+        Map lazy = (Map)JSONIndex.parse( json ).getRoot();
+        assertEquals( expected.keySet(), lazy.keySet() );
+        assertEquals( expected.get("hobbies"), lazy.get("hobbies") );
+        assertEquals( expected.get("home"), lazy.get("home") );
+        assertEquals( lazy.get("home"), expected.get("home") );
+    }
+
+    @Test
+    public void testBindLazily() {
+        Person charlie = creator.createCharlie();
+        String json = new JSONSerializer().include("phones", "hobbies").serialize( charlie );
+        Person jsonCharlie = new JSONDeserializer<Person>().lazy(true).deserialize( json );
+
+        assertEquals( charlie.getFirstname(), jsonCharlie.getFirstname() );
+        assertEquals( charlie.getBirthdate(), jsonCharlie.getBirthdate() );
+        assertEquals( charlie.getHome().getCity(), jsonCharlie.getHome().getCity() );
+        assertEquals( 2, jsonCharlie.getPhones().size() );
+        assertEquals( "Fixing Horse Races", jsonCharlie.getHobbies().get(1) );
+    }
+
+    @Test
+    public void testRejectsMalformedInput() {
+        assertMalformed( "{\"a\":1" );
+        assertMalformed( "{\"a\" 1}" );
+        assertMalformed( "[1,]" );
+        assertMalformed( "[01]" );
+        assertMalformed( "{'a':1}" );
+        assertMalformed( "[1] 2" );
+    }
+
+    private void assertMalformed( String json ) {
+        try {
+            JSONIndex.parse( json );
+            fail( "Expected " + json + " to be rejected" );
+        } catch( JSONException e ) {
+            // expected
+        }
+    }
+}
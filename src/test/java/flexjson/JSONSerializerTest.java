@@ -25,7 +25,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static junit.framework.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -466,6 +470,163 @@ public class JSONSerializerTest {
         assertStringValue("Creates web", json);
     }
 
+    @Test
+    public void testAnnotatedTransformerAndObjectFactory() {
+        Thermometer thermometer = new Thermometer("Atlanta", 100.0);
+        for (JSONSerializer serializer : new JSONSerializer[] { new JSONSerializer(), new JSONSerializer().objectWriters(1) }) {
+            for (int i = 0; i < 2; i++) {
+                assertEquals("{\"celsius\":212.0,\"class\":\"flexjson.mock.Thermometer\",\"location\":\"Atlanta\"}", serializer.serialize(thermometer));
+            }
+        }
+
+        Thermometer bound = new JSONDeserializer<Thermometer>().deserialize("{\"celsius\":212.0,\"class\":\"flexjson.mock.Thermometer\",\"location\":\"Atlanta\"}");
+        assertEquals(100.0, bound.getCelsius(), 0.0001);
+
+        // a transformer registered for the path wins over the annotation
+        String json = new JSONSerializer().exclude("class").transform(new AbstractTransformer() {
+            public void transform(Object object) {
+                getContext().write("0");
+            }
+        }, "celsius").serialize(thermometer);
+        assertEquals("{\"celsius\":0,\"location\":\"Atlanta\"}", json);
+    }
+
+    @Test
+    public void testExcludeNullsEmptyAndDefaults() {
+        Profile profile = new Profile();
+        for (int threshold : new int[] { 0, 1 }) {
+            for (int i = 0; i < 2; i++) {
+                assertEquals("{\"age\":0,\"bio\":\"\",\"name\":\"Jo\",\"nickname\":null,\"score\":0,\"status\":null,\"tags\":[],\"verified\":false}",
+                        new JSONSerializer().objectWriters(threshold).exclude("class").include("tags").serialize(profile));
+                assertEquals("{\"age\":0,\"bio\":\"\",\"name\":\"Jo\",\"score\":0,\"status\":null,\"tags\":[],\"verified\":false}",
+                        new JSONSerializer().objectWriters(threshold).exclude("class").include("tags").excludeNulls(true).serialize(profile));
+                assertEquals("{\"age\":0,\"name\":\"Jo\",\"score\":0,\"status\":null,\"verified\":false}",
+                        new JSONSerializer().objectWriters(threshold).exclude("class").include("tags").excludeNulls(true).excludeEmpty(true).serialize(profile));
+                assertEquals("{\"bio\":\"\",\"name\":\"Jo\",\"score\":0,\"status\":null,\"tags\":[]}",
+                        new JSONSerializer().objectWriters(threshold).exclude("class").include("tags").excludeDefaults(true).serialize(profile));
+            }
+        }
+        assertEquals("{\"age\":0,\"bio\":\"\",\"name\":\"Jo\",\"score\":0,\"status\":null,\"verified\":false}",
+                new JSONSerializer().exclude("class").excludeNulls(true).excludeNulls(false).excludeNulls(true).serialize(profile));
+    }
+
+    @Test
+    public void testInclusionsByPath() {
+        Map<String, Person> twins = new LinkedHashMap<String, Person>();
+        twins.put("a", charlie);
+        twins.put("b", charlie);
+
+        JSONSerializer serializer = new JSONSerializer().exclude("b.firstname");
+        for (int i = 0; i < 2; i++) {
+            String json = serializer.serialize(twins);
+            assertEquals(1, occurs("\"firstname\":", json));
+            assertEquals(2, occurs("\"lastname\":", json));
+            assertTrue(json.indexOf("\"firstname\":") < json.indexOf("\"b\":"));
+        }
+
+        serializer.exclude("a.lastname");
+        String json = serializer.serialize(twins);
+        assertEquals(1, occurs("\"firstname\":", json));
+        assertEquals(1, occurs("\"lastname\":", json));
+        assertTrue(json.indexOf("\"lastname\":") > json.indexOf("\"b\":"));
+    }
+
+    @Test
+    public void testObjectWriters() {
+        String expected = new JSONSerializer().include("phones").serialize(charlie);
+        String deep = new JSONSerializer().deepSerialize(network);
+
+        JSONSerializer serializer = new JSONSerializer().objectWriters(2).include("phones");
+        for (int i = 0; i < 4; i++) {
+            assertEquals(expected, serializer.serialize(charlie));
+        }
+
+        JSONSerializer deepSerializer = new JSONSerializer().objectWriters(1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(deep, deepSerializer.deepSerialize(network));
+        }
+
+        // changing the configuration throws the writers away
+        serializer.exclude("firstname").transform(new AbstractTransformer() {
+            public void transform(Object object) {
+                getContext().writeQuoted(((String) object).toUpperCase());
+            }
+        }, String.class);
+        String changed = serializer.serialize(charlie);
+        assertAttributeMissing("firstname", changed);
+        assertStringValue("HUBBARD", changed);
+        assertEquals(changed, serializer.serialize(charlie));
+    }
+
+    @Test
+    public void testFragmentCache() {
+        List<Person> people = Arrays.asList(charlie, ben, charlie);
+        String expected = new JSONSerializer().serialize(people);
+
+        FragmentCache cache = new FragmentCache(1 << 16).cache(Person.class);
+        JSONSerializer serializer = new JSONSerializer().fragmentCache(cache);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(expected, serializer.serialize(people));
+        }
+        assertEquals(2, cache.getMisses());
+        assertEquals(7, cache.getHits());
+        assertEquals(2, cache.size());
+        assertEquals(7.0 / 9, cache.getHitRate(), 0.0001);
+
+        // fragments written under one configuration aren't used by another
+        serializer.exclude("firstname");
+        assertEquals(new JSONSerializer().exclude("firstname").serialize(people), serializer.serialize(people));
+        JSONSerializer other = new JSONSerializer().include("phones").fragmentCache(cache);
+        assertEquals(new JSONSerializer().include("phones").serialize(people), other.serialize(people));
+        assertEquals(6, cache.getMisses());
+
+        // fragments larger than the cache are written every time
+        FragmentCache tiny = new FragmentCache(8).cache(Person.class);
+        JSONSerializer uncached = new JSONSerializer().fragmentCache(tiny);
+        assertEquals(expected, uncached.serialize(people));
+        assertEquals(expected, uncached.serialize(people));
+        assertEquals(0, tiny.getHits());
+        assertEquals(0, tiny.size());
+
+        // past the maximum size the least recently used fragments make room
+        int fragment = new JSONSerializer().serialize(charlie).length();
+        FragmentCache small = new FragmentCache(fragment * 2).cache(Person.class);
+        JSONSerializer evicting = new JSONSerializer().fragmentCache(small);
+        List<Person> everybody = Arrays.asList(charlie, ben, pedro, charlie);
+        assertEquals(new JSONSerializer().serialize(everybody), evicting.serialize(everybody));
+        assertTrue(small.getEvictions() > 0);
+        assertTrue(small.weight() <= fragment * 2);
+    }
+
+    @Test
+    public void testFragmentCacheSharedBetweenThreads() throws Exception {
+        final List<Person> people = Arrays.asList(charlie, ben, pedro);
+        final String expected = new JSONSerializer().serialize(people);
+        final FragmentCache cache = new FragmentCache(1 << 16).cache(Person.class);
+        final JSONSerializer serializer = new JSONSerializer().fragmentCache(cache);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(new Callable<Boolean>() {
+                    public Boolean call() {
+                        for (int j = 0; j < 200; j++) {
+                            if (!expected.equals(serializer.serialize(people))) return false;
+                        }
+                        return true;
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(4 * 200 * 3, cache.getHits() + cache.getMisses() + cache.getCoalesced());
+        assertTrue(cache.getHits() >= 4 * 200 * 3 - 12);
+    }
+
     /**
      * https://sourceforge.net/tracker/index.php?func=detail&aid=2927626&group_id=194042&atid=947842#
      */
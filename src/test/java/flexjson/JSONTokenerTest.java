@@ -0,0 +1,97 @@
+package flexjson;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class JSONTokenerTest {
+
+    @Test
+    public void testStrings() {
+        // long enough to cross several buffer boundaries with escapes, keys and surrogate pairs on both sides of them
+        StringBuilder expected = new StringBuilder();
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 3000; i++) {
+            String plain = "value " + i + " \u00e9\ud83d\ude00";
+            expected.append(plain);
+            json.append(i > 0 ? "," : "").append("{\"key").append(i % 7).append("\":\"").append(plain);
+            if (i % 3 == 0) {
+                json.append("\\n\\\"\\ud83d\\ude00\\u00E9");
+                expected.append("\n\"\ud83d\ude00\u00e9");
+            }
+            json.append("\"}");
+        }
+        json.append("]");
+
+        for (boolean strict : new boolean[] { false, true }) {
+            for (JSONTokener tokener : new JSONTokener[] { new JSONTokener(json.toString()), new JSONTokener(new StringReader(json.toString())), new JSONTokener(new TrickleReader(json.toString())) }) {
+                List<Map<String, String>> values = (List<Map<String, String>>) tokener.strict(strict).nextValue();
+                StringBuilder actual = new StringBuilder();
+                for (int i = 0; i < values.size(); i++) {
+                    actual.append(values.get(i).get("key" + (i % 7)));
+                }
+                assertEquals(expected.toString(), actual.toString());
+                assertSame(values.get(0).keySet().iterator().next(), values.get(7).keySet().iterator().next());
+                assertEquals(0x1F600, values.get(3).get("key3").codePointAt(values.get(3).get("key3").length() - 3));
+            }
+        }
+    }
+
+    @Test
+    public void testEscapes() {
+        assertEquals("A\u00ff\t", new JSONTokener("'\\x41\\u00FF\\t'").nextValue());
+        try {
+            new JSONTokener("\"\\u00g0\"").nextValue();
+            fail("Expected a bad unicode escape to be rejected");
+        } catch (JSONException e) {
+            // expected
+        }
+        try {
+            new JSONTokener("\"abc").nextValue();
+            fail("Expected an unterminated string to be rejected");
+        } catch (JSONException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNextToAndSkipTo() {
+        JSONTokener tokener = new JSONTokener(new TrickleReader("  first ; second\nthird"));
+        assertEquals("first", tokener.nextTo(';'));
+        assertEquals(';', tokener.next());
+        assertEquals(0, tokener.skipTo('#'));
+        assertEquals("second", tokener.nextTo("\n"));
+        assertEquals('\n', tokener.skipTo('\n'));
+        tokener.next();
+        assertEquals("third", tokener.nextTo('\n'));
+    }
+
+    /**
+     * Hands out a few characters at a time like a slow network stream.
+     */
+    private static class TrickleReader extends Reader {
+        private final String text;
+        private int position;
+
+        TrickleReader(String text) {
+            this.text = text;
+        }
+
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            if (position == text.length()) return -1;
+            int n = Math.min(Math.min(length, 3), text.length() - position);
+            text.getChars(position, position + n, buffer, offset);
+            position += n;
+            return n;
+        }
+
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package flexjson;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class JsonNumberTest {
+
+    @Test
+    public void testTokenerNumbers() {
+        List values = (List)new JSONTokener("[0, -42, 12.50, 1e3, -2.5E-3, 9223372036854775807, 017, 123456789012345678901234567890]").nextValue();
+
+        assertEquals( 0L, ((JsonNumber)values.get(0)).longValue() );
+        assertEquals( -42, ((JsonNumber)values.get(1)).intValue() );
+        assertFalse( ((JsonNumber)values.get(1)).isDecimal() );
+        assertEquals( new BigDecimal("12.50"), ((JsonNumber)values.get(2)).toBigDecimal() );
+        assertEquals( 12.5, ((JsonNumber)values.get(2)).doubleValue(), 0.0 );
+        assertTrue( ((JsonNumber)values.get(3)).isDecimal() );
+        assertEquals( 1000.0, ((JsonNumber)values.get(3)).doubleValue(), 0.0 );
+        assertEquals( -0.0025, ((JsonNumber)values.get(4)).doubleValue(), 0.0 );
+        assertEquals( -0.0025f, ((JsonNumber)values.get(4)).floatValue(), 0.0f );
+        assertEquals( Long.MAX_VALUE, ((JsonNumber)values.get(5)).longValue() );
+        assertEquals( 15, ((JsonNumber)values.get(6)).intValue() );
+        assertEquals( new BigInteger("123456789012345678901234567890"), ((JsonNumber)values.get(7)).toBigInteger() );
+        assertEquals( "123456789012345678901234567890", values.get(7).toString() );
+        assertEquals( 31, new JsonNumber("0x1F").intValue() );
+    }
+
+    @Test
+    public void testTextIsOnlyBuiltWhenAsked() {
+        assertEquals( "-42", new JSONTokener("-42").nextValue().toString() );
+        assertEquals( "12.50", new JSONTokener("12.50").nextValue().toString() );
+        assertEquals( new BigDecimal("1e3"), new BigDecimal( new JSONTokener("1e3").nextValue().toString() ) );
+    }
+
+    @Test
+    public void testRangeChecks() {
+        JsonNumber big = (JsonNumber)new JSONTokener("3000000000").nextValue();
+        assertEquals( 3000000000L, big.longValue() );
+        try {
+            big.intValue();
+            fail( "Expected 3000000000 to be out of range for an int" );
+        } catch( NumberFormatException e ) {
+            // expected
+        }
+        try {
+            ((JsonNumber)new JSONTokener("2.5").nextValue()).intValue();
+            fail( "Expected a decimal to be rejected as an int" );
+        } catch( NumberFormatException e ) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testDoublesMatchJdk() {
+        Random random = new Random( 1234 );
+        for( int i = 0; i < 20000; i++ ) {
+            double expected = Double.longBitsToDouble( random.nextLong() );
+            if( Double.isNaN( expected ) || Double.isInfinite( expected ) ) continue;
+            String text = Double.toString( expected );
+            JsonNumber number = (JsonNumber)new JSONTokener( text ).nextValue();
+            assertEquals( text, Double.doubleToLongBits( expected ), Double.doubleToLongBits( number.doubleValue() ) );
+        }
+        String[] edges = { "2.2250738585072013e-308", "4.9e-324", "2.4703282292062328e-324", "1.7976931348623157e308",
+                "1e400", "1e-400", "9007199254740993", "7.2057594037927933e+16", "0.1", "-0.0" };
+        for( String edge : edges ) {
+            JsonNumber number = (JsonNumber)new JSONTokener( edge ).nextValue();
+            assertEquals( edge, Double.doubleToLongBits( Double.parseDouble( edge ) ), Double.doubleToLongBits( number.doubleValue() ) );
+        }
+    }
+
+    @Test
+    public void testNegativeZero() {
+        for( String zero : new String[] { "-0", "-0.0", "-0e0" } ) {
+            JsonNumber number = (JsonNumber)new JSONTokener( zero ).nextValue();
+            assertEquals( zero, Double.doubleToLongBits( -0.0 ), Double.doubleToLongBits( number.doubleValue() ) );
+            assertEquals( zero, Float.floatToIntBits( -0.0f ), Float.floatToIntBits( number.floatValue() ) );
+        }
+        assertEquals( 0L, ((JsonNumber)new JSONTokener( "-0" ).nextValue()).longValue() );
+        Double zero = new JSONDeserializer<Double>().use( null, Double.class ).deserialize( "-0" );
+        assertEquals( Double.doubleToLongBits( -0.0 ), Double.doubleToLongBits( zero ) );
+        Float floatZero = new JSONDeserializer<Float>().use( null, Float.class ).deserialize( "-0" );
+        assertEquals( Float.floatToIntBits( -0.0f ), Float.floatToIntBits( floatZero ) );
+    }
+}
@@ -6,6 +6,7 @@ import junit.framework.TestSuite;
 import junit.textui.TestRunner;
 
 import java.util.*;
+import java.lang.reflect.Type;
 
 import flexjson.mock.Person;
 import flexjson.mock.PhoneNumberType;
@@ -175,6 +176,39 @@ public class ObjectBinderTest extends TestCase {
         assertEquals( zipcode.get("zipcode"), person.getHome().getZipcode().getZipcode() );
     }
 
+    public void testCapitalizedKeys() {
+        Map map = new HashMap();
+        map.put("class", Person.class.getName() );
+        map.put("Firstname", "Chuck");
+        map.put("firstname", "Charlie");
+        map.put("Lastname", "Hubbard");
+        map.put("lastname", null);
+        map.put("unknown", "ignored");
+
+        ObjectBinder binder = new ObjectBinder();
+        Person person = (Person)binder.bind( map );
+
+        assertEquals( "Charlie", person.getFirstname() );
+        assertEquals( "Hubbard", person.getLastname() );
+    }
+
+    public void testFactoryRegisteredAfterBinding() {
+        Map map = new HashMap();
+        map.put("class", Person.class.getName() );
+        map.put("firstname", "Charlie");
+
+        ObjectBinder binder = new ObjectBinder();
+        assertEquals( "Charlie", ((Person)binder.bind( map )).getFirstname() );
+
+        final Person replacement = new Person();
+        binder.use( Person.class, new ObjectFactory() {
+            public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
+                return replacement;
+            }
+        });
+        assertSame( replacement, binder.bind( map ) );
+    }
+
     public void tearDown() {
     }
 
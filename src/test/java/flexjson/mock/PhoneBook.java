@@ -0,0 +1,76 @@
+package flexjson.mock;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class PhoneBook {
+
+    private LinkedHashMap<String,Integer> extensions;
+    private TreeMap<String,String> names;
+    private SortedMap<String,String> sorted;
+    private Set<PhoneNumberType> types;
+    private Map<PhoneNumberType,String> numbers;
+    private LinkedList<String> recent;
+    private Queue<String> pending;
+
+    public LinkedHashMap<String, Integer> getExtensions() {
+        return extensions;
+    }
+
+    public void setExtensions(LinkedHashMap<String, Integer> extensions) {
+        this.extensions = extensions;
+    }
+
+    public TreeMap<String, String> getNames() {
+        return names;
+    }
+
+    public void setNames(TreeMap<String, String> names) {
+        this.names = names;
+    }
+
+    public SortedMap<String, String> getSorted() {
+        return sorted;
+    }
+
+    public void setSorted(SortedMap<String, String> sorted) {
+        this.sorted = sorted;
+    }
+
+    public Set<PhoneNumberType> getTypes() {
+        return types;
+    }
+
+    public void setTypes(Set<PhoneNumberType> types) {
+        this.types = types;
+    }
+
+    public Map<PhoneNumberType, String> getNumbers() {
+        return numbers;
+    }
+
+    public void setNumbers(Map<PhoneNumberType, String> numbers) {
+        this.numbers = numbers;
+    }
+
+    public LinkedList<String> getRecent() {
+        return recent;
+    }
+
+    public void setRecent(LinkedList<String> recent) {
+        this.recent = recent;
+    }
+
+    public Queue<String> getPending() {
+        return pending;
+    }
+
+    public void setPending(Queue<String> pending) {
+        this.pending = pending;
+    }
+}
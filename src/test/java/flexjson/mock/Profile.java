@@ -0,0 +1,57 @@
+package flexjson.mock;
+
+import flexjson.JSON;
+import flexjson.Omit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class Profile {
+    private String name = "Jo";
+    private String nickname;
+    private String bio = "";
+    private int age;
+    private boolean verified;
+    private Integer score = 0;
+    private List<String> tags = new ArrayList<String>();
+    @JSON(omit = Omit.NEVER)
+    private String status;
+    @JSON(omit = Omit.NULLS)
+    private String motto;
+
+    public String getName() {
+        return name;
+    }
+
+    public String getNickname() {
+        return nickname;
+    }
+
+    public String getBio() {
+        return bio;
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    public boolean isVerified() {
+        return verified;
+    }
+
+    public Integer getScore() {
+        return score;
+    }
+
+    public List<String> getTags() {
+        return tags;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMotto() {
+        return motto;
+    }
+}
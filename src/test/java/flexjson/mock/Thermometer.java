@@ -0,0 +1,50 @@
+package flexjson.mock;
+
+import flexjson.JSON;
+import flexjson.ObjectBinder;
+import flexjson.ObjectFactory;
+import flexjson.transformer.AbstractTransformer;
+
+import java.lang.reflect.Type;
+
+public class Thermometer {
+    private String location;
+    @JSON(transformer = FahrenheitTransformer.class, objectFactory = FahrenheitObjectFactory.class)
+    private double celsius;
+
+    public Thermometer() {
+    }
+
+    public Thermometer(String location, double celsius) {
+        this.location = location;
+        this.celsius = celsius;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public double getCelsius() {
+        return celsius;
+    }
+
+    public void setCelsius(double celsius) {
+        this.celsius = celsius;
+    }
+
+    public static class FahrenheitTransformer extends AbstractTransformer {
+        public void transform(Object object) {
+            getContext().write(String.valueOf((Double) object * 9 / 5 + 32));
+        }
+    }
+
+    public static class FahrenheitObjectFactory implements ObjectFactory {
+        public Object instantiate(ObjectBinder context, Object value, Type targetType, Class targetClass) {
+            return (((Number) value).doubleValue() - 32) * 5 / 9;
+        }
+    }
+}